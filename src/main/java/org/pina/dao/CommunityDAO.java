@@ -8,6 +8,11 @@ import java.util.*;
 
 public class CommunityDAO {
 
+    private static final String UPSERT_SQL = """
+            INSERT INTO Community (id, functionalAnnotation) VALUES (?, ?)
+            ON CONFLICT (id) DO UPDATE SET functionalAnnotation = excluded.functionalAnnotation
+        """;
+
     private final Connection connection;
 
     public CommunityDAO(Connection connection) {
@@ -16,28 +21,45 @@ public class CommunityDAO {
 
 
     public void addOrUpdateCommunity(Community community) throws SQLException {
-        String selectSql = "SELECT 1 FROM Community WHERE id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(selectSql)) {
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
             ps.setString(1, community.getId());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    // Update
-                    String updateSql = "UPDATE Community SET functionalAnnotation = ? WHERE id = ?";
-                    try (PreparedStatement ups = connection.prepareStatement(updateSql)) {
-                        ups.setString(1, community.getFunctionalAnnotation());
-                        ups.setString(2, community.getId());
-                        ups.executeUpdate();
-                    }
-                } else {
-                    // Insert
-                    String insertSql = "INSERT INTO Community (id, functionalAnnotation) VALUES (?, ?)";
-                    try (PreparedStatement ips = connection.prepareStatement(insertSql)) {
-                        ips.setString(1, community.getId());
-                        ips.setString(2, community.getFunctionalAnnotation());
-                        ips.executeUpdate();
-                    }
+            ps.setString(2, community.getFunctionalAnnotation());
+            ps.executeUpdate();
+        }
+    }
+
+    // Upserts the communities and replaces their member links, batchSize rows per round trip. Detectors
+    // reuse ids such as <network>-lpa-1 across runs, so links left from an earlier membership must go.
+    public void addOrUpdateCommunities(Collection<Community> communities, int batchSize) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Community community : communities) {
+                ps.setString(1, community.getId());
+                ps.setString(2, community.getFunctionalAnnotation());
+                batch.add();
+            }
+            batch.flush();
+        }
+        String unlinkSql = "DELETE FROM Community_Protein WHERE community_id = ?";
+        try (PreparedStatement ps = connection.prepareStatement(unlinkSql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Community community : communities) {
+                ps.setString(1, community.getId());
+                batch.add();
+            }
+            batch.flush();
+        }
+        String linkSql = "INSERT INTO Community_Protein (community_id, protein_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        try (PreparedStatement ps = connection.prepareStatement(linkSql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Community community : communities) {
+                for (Protein protein : community.getProteins()) {
+                    ps.setString(1, community.getId());
+                    ps.setString(2, protein.getUniprotId());
+                    batch.add();
                 }
             }
+            batch.flush();
         }
     }
 
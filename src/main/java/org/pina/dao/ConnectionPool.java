@@ -0,0 +1,152 @@
+package org.pina.dao;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+
+// One writer connection plus up to N read-only connections to the same SQLite file, all opened with the
+// same pragmas. The database runs in WAL mode, so readers see the last committed state and are never
+// blocked by a save in progress on the writer. Readers are opened on first demand and handed out as
+// leases; a borrower waits while all of them are in use.
+public final class ConnectionPool implements AutoCloseable {
+
+    public static final int DEFAULT_READERS = 4;
+
+    private final String url;
+    private final int maxReaders;
+    private final SQLiteConfig readerConfig;
+    private final Connection writer;
+    private final Deque<Connection> idleReaders = new ArrayDeque<>();
+    private int openReaders;
+    private boolean closed;
+
+    // tuning holds the pragmas every connection is opened with; its journal mode and read-only flag
+    // are overridden
+    public ConnectionPool(String url, int maxReaders, SQLiteConfig tuning) throws SQLException {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("Reader count must be positive: " + maxReaders);
+        }
+        this.url = url;
+        this.maxReaders = maxReaders;
+
+        SQLiteConfig writerConfig = copyOf(tuning);
+        writerConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        writerConfig.setReadOnly(false);
+        this.writer = DriverManager.getConnection(url, writerConfig.toProperties());
+
+        // Journal mode persists in the file and is set by the writer; read-only connections cannot set it
+        this.readerConfig = copyOf(tuning);
+        this.readerConfig.toProperties().remove(SQLiteConfig.Pragma.JOURNAL_MODE.pragmaName);
+        this.readerConfig.setReadOnly(true);
+    }
+
+    // SQLiteConfig keeps the Properties it is built from, so every connection kind needs its own copy
+    private static SQLiteConfig copyOf(SQLiteConfig config) {
+        Properties properties = new Properties();
+        properties.putAll(config.toProperties());
+        return new SQLiteConfig(properties);
+    }
+
+    // The only connection that may write; DAOs doing writes share it
+    public Connection writer() {
+        return writer;
+    }
+
+    public Lease borrowReader() throws SQLException {
+        synchronized (this) {
+            while (idleReaders.isEmpty() && openReaders == maxReaders && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a reader connection", e);
+                }
+            }
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            if (!idleReaders.isEmpty()) {
+                return new Lease(idleReaders.pop());
+            }
+            openReaders++;
+        }
+        // Opened outside the lock; the slot is already counted
+        try {
+            return new Lease(DriverManager.getConnection(url, readerConfig.toProperties()));
+        } catch (SQLException e) {
+            synchronized (this) {
+                openReaders--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void release(Connection connection) {
+        if (closed) {
+            closeQuietly(connection);
+            return;
+        }
+        idleReaders.push(connection);
+        notifyAll();
+    }
+
+    public boolean isClosed() throws SQLException {
+        synchronized (this) {
+            if (closed) return true;
+        }
+        return writer.isClosed();
+    }
+
+    // Closes the writer and every idle reader; readers still on lease close when they are returned
+    @Override
+    public void close() throws SQLException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            for (Connection connection : idleReaders) {
+                closeQuietly(connection);
+            }
+            idleReaders.clear();
+            notifyAll();
+        }
+        writer.close();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Nothing is left to roll back on a read-only connection
+        }
+    }
+
+    // A borrowed read-only connection; closing the lease returns it to the pool
+    public final class Lease implements AutoCloseable {
+        private Connection connection;
+
+        private Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection connection() {
+            if (connection == null) {
+                throw new IllegalStateException("Lease already returned");
+            }
+            return connection;
+        }
+
+        @Override
+        public void close() {
+            if (connection != null) {
+                release(connection);
+                connection = null;
+            }
+        }
+    }
+}
@@ -1,34 +1,65 @@
 package org.pina.dao;
 
+import org.sqlite.SQLiteConfig;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Locale;
 
 public class DatabaseConnection {
 
     private static final String DB_URL = "jdbc:sqlite:pina_database.sqlite";
+
+    // Connection tuning, overridable with -Dpina.db.<name>=<value>. In WAL mode synchronous=NORMAL only
+    // syncs at checkpoints, so bulk imports no longer pay an fsync per commit.
+    private static final String READERS = "pina.db.readers";
+    private static final String SYNCHRONOUS = "pina.db.synchronous";
+    private static final String CACHE_SIZE = "pina.db.cacheSize";
+    private static final String MMAP_SIZE = "pina.db.mmapSize";
+    private static final String TEMP_STORE = "pina.db.tempStore";
+    private static final int DEFAULT_CACHE_SIZE = -65536; // negative: KiB, so 64 MiB per connection
+    private static final long DEFAULT_MMAP_SIZE = 256L * 1024 * 1024;
+
     private static DatabaseConnection instance;
-    private Connection connection;
+    private final ConnectionPool pool;
 
     private DatabaseConnection() throws SQLException {
         try {
             // Load the SQLite JDBC driver (optional for modern drivers)
             Class.forName("org.sqlite.JDBC");
-            // Establish the connection
-            this.connection = DriverManager.getConnection(DB_URL);
+            // Establish the connections
+            this.pool = new ConnectionPool(DB_URL, Integer.getInteger(READERS, ConnectionPool.DEFAULT_READERS), tuning());
+            // Upgrade databases written by older versions before any DAO touches them
+            SchemaMigrations.migrate(pool.writer());
         } catch (ClassNotFoundException e) {
             throw new SQLException("SQLite JDBC driver not found.", e);
         }
     }
 
+    private static SQLiteConfig tuning() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(
+                System.getProperty(SYNCHRONOUS, "NORMAL").toUpperCase(Locale.ROOT)));
+        config.setCacheSize(Integer.getInteger(CACHE_SIZE, DEFAULT_CACHE_SIZE));
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(Long.getLong(MMAP_SIZE, DEFAULT_MMAP_SIZE)));
+        config.setTempStore(SQLiteConfig.TempStore.valueOf(
+                System.getProperty(TEMP_STORE, "MEMORY").toUpperCase(Locale.ROOT)));
+        return config;
+    }
+
     public static synchronized DatabaseConnection getInstance() throws SQLException {
-        if (instance == null || instance.getConnection().isClosed()) {
+        if (instance == null || instance.pool.isClosed()) {
             instance = new DatabaseConnection();
         }
         return instance;
     }
 
+    // The writer connection
     public Connection getConnection() {
-        return connection;
+        return pool.writer();
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
     }
 }
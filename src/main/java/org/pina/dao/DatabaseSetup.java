@@ -6,6 +6,7 @@ import java.sql.Statement;
 
 public class DatabaseSetup {
 
+    // Schema version 1; later changes are migrations in SchemaMigrations
     public static void createAllTables(Connection conn) throws SQLException {
         try (Statement stmt = conn.createStatement()) {
 
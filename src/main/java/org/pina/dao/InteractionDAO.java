@@ -9,6 +9,10 @@ import java.util.List;
 
 public class InteractionDAO {
 
+    static final String STAGED_TABLE = "temp.Staged_Interaction";
+    // Columns of the unique index on an interaction's unordered endpoint pair and score
+    static final String CANONICAL_KEY = "MIN(protein1_id, protein2_id), MAX(protein1_id, protein2_id), confidenceScore";
+
     private final Connection connection;
     ProteinDAO proteinDAO ;
 
@@ -21,7 +25,8 @@ public class InteractionDAO {
         String sql = """
             INSERT INTO Interaction (protein1_id, protein2_id, confidenceScore)
             VALUES (?, ?, ?)
-        """;
+            ON CONFLICT (%s) DO NOTHING
+        """.formatted(CANONICAL_KEY);
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, interaction.getProtein1().getUniprotId());
@@ -155,4 +160,79 @@ public class InteractionDAO {
         }
     }
 
+    // Ids of the stored interactions equal to the given ones (same endpoints in either order and same score),
+    // inserting the ones not stored yet; ids[i] belongs to interactions.get(i)
+    public int[] createOrGetInteractionIds(List<Interaction> interactions, int batchSize) throws SQLException {
+        stageInteractions(interactions, batchSize);
+        int[] ids = new int[interactions.size()];
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT slot, interaction_id FROM " + STAGED_TABLE)) {
+            while (rs.next()) {
+                ids[rs.getInt(1)] = rs.getInt(2);
+            }
+        }
+        dropStagedInteractions();
+        return ids;
+    }
+
+    // Set-based createOrGet: fills STAGED_TABLE with (slot, endpoints, score, interaction_id) for the given
+    // interactions, inserting the ones not stored yet. One upsert and one keyed lookup per row replace a
+    // query per interaction; callers read the table and then drop it with dropStagedInteractions().
+    void stageInteractions(List<Interaction> interactions, int batchSize) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + STAGED_TABLE);
+            stmt.execute("""
+                CREATE TEMP TABLE Staged_Interaction (
+                    slot INTEGER PRIMARY KEY,
+                    protein1_id TEXT NOT NULL,
+                    protein2_id TEXT NOT NULL,
+                    confidenceScore REAL,
+                    interaction_id INTEGER
+                )
+            """);
+        }
+
+        String stageSql = """
+            INSERT INTO temp.Staged_Interaction (slot, protein1_id, protein2_id, confidenceScore)
+            VALUES (?, ?, ?, ?)
+        """;
+        try (PreparedStatement ps = connection.prepareStatement(stageSql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (int slot = 0; slot < interactions.size(); slot++) {
+                Interaction interaction = interactions.get(slot);
+                ps.setInt(1, slot);
+                ps.setString(2, interaction.getProtein1().getUniprotId());
+                ps.setString(3, interaction.getProtein2().getUniprotId());
+                ps.setDouble(4, interaction.getConfidenceScore());
+                batch.add();
+            }
+            batch.flush();
+        }
+
+        // Insert what is not stored yet, then read every staged row's id off the canonical key
+        String insertSql = """
+            INSERT INTO Interaction (protein1_id, protein2_id, confidenceScore)
+            SELECT protein1_id, protein2_id, confidenceScore FROM temp.Staged_Interaction WHERE true
+            ON CONFLICT (%s) DO NOTHING
+        """.formatted(CANONICAL_KEY);
+        String matchSql = """
+            UPDATE temp.Staged_Interaction AS s SET interaction_id = (
+                SELECT i.id FROM Interaction i
+                WHERE MIN(i.protein1_id, i.protein2_id) = MIN(s.protein1_id, s.protein2_id)
+                  AND MAX(i.protein1_id, i.protein2_id) = MAX(s.protein1_id, s.protein2_id)
+                  AND i.confidenceScore = s.confidenceScore
+            )
+        """;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(insertSql);
+            stmt.executeUpdate(matchSql);
+        }
+    }
+
+    void dropStagedInteractions() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + STAGED_TABLE);
+        }
+    }
+
 }
@@ -0,0 +1,37 @@
+package org.pina.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Collects rows bound on one prepared statement and sends them in JDBC batches of a fixed size
+final class JdbcBatch {
+
+    private final PreparedStatement statement;
+    private final int size;
+    private int pending;
+
+    JdbcBatch(PreparedStatement statement, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + size);
+        }
+        this.statement = statement;
+        this.size = size;
+    }
+
+    // Queues the currently bound parameters and sends the batch once it is full; returns the rows changed
+    int add() throws SQLException {
+        statement.addBatch();
+        return ++pending == size ? flush() : 0;
+    }
+
+    // Sends the queued rows; returns the rows changed
+    int flush() throws SQLException {
+        if (pending == 0) return 0;
+        pending = 0;
+        int changed = 0;
+        for (int count : statement.executeBatch()) {
+            if (count > 0) changed += count;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,318 @@
+package org.pina.dao;
+
+import java.sql.*;
+
+// Diff and merge of saved networks straight from the join tables, without building PPINetwork object
+// graphs. Both networks are streamed in sorted order (proteins by id, interactions by their canonical
+// (min id, max id) endpoint pair, sorted by SQLite) and merged in a single pass, so memory on the Java
+// side stays constant however large the networks are.
+public class NetworkComparisonDAO {
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Score kept for an interaction present in both merged networks with different confidence
+    public enum ScorePolicy {
+        FIRST, SECOND, MAX, MIN, MEAN;
+
+        double choose(double first, double second) {
+            return switch (this) {
+                case FIRST -> first;
+                case SECOND -> second;
+                case MAX -> Math.max(first, second);
+                case MIN -> Math.min(first, second);
+                case MEAN -> (first + second) / 2;
+            };
+        }
+    }
+
+    private final Connection connection;
+    // When set, diffs run on a borrowed read-only connection instead of the writer
+    private final ConnectionPool pool;
+
+    public NetworkComparisonDAO(Connection connection) {
+        this.connection = connection;
+        this.pool = null;
+    }
+
+    // Merges on the pool's writer, diffs on its readers
+    public NetworkComparisonDAO(ConnectionPool pool) {
+        this.connection = pool.writer();
+        this.pool = pool;
+    }
+
+    public NetworkDiff diff(String firstNetwork, String secondNetwork) throws SQLException {
+        return diff(firstNetwork, secondNetwork, new NetworkDiff.Listener() {
+        });
+    }
+
+    // Everything that changes from the first network to the second
+    public NetworkDiff diff(String firstNetwork, String secondNetwork, NetworkDiff.Listener listener) throws SQLException {
+        if (pool != null) {
+            try (ConnectionPool.Lease lease = pool.borrowReader()) {
+                return new NetworkComparisonDAO(lease.connection()).diff(firstNetwork, secondNetwork, listener);
+            }
+        }
+        int firstId = requireNetworkId(firstNetwork);
+        int secondId = requireNetworkId(secondNetwork);
+        NetworkDiff diff = new NetworkDiff(firstNetwork, secondNetwork);
+
+        try (IdCursor first = new IdCursor(connection, firstId);
+             IdCursor second = new IdCursor(connection, secondId)) {
+            boolean hasFirst = first.next();
+            boolean hasSecond = second.next();
+            while (hasFirst || hasSecond) {
+                int order = !hasFirst ? 1 : !hasSecond ? -1 : compareIds(first.id, second.id);
+                if (order < 0) {
+                    diff.removedProteins++;
+                    listener.proteinRemoved(first.id);
+                    hasFirst = first.next();
+                } else if (order > 0) {
+                    diff.addedProteins++;
+                    listener.proteinAdded(second.id);
+                    hasSecond = second.next();
+                } else {
+                    hasFirst = first.next();
+                    hasSecond = second.next();
+                }
+            }
+        }
+
+        try (PairCursor first = new PairCursor(connection, firstId);
+             PairCursor second = new PairCursor(connection, secondId)) {
+            boolean hasFirst = first.next();
+            boolean hasSecond = second.next();
+            while (hasFirst || hasSecond) {
+                int order = !hasFirst ? 1 : !hasSecond ? -1 : first.compareTo(second);
+                if (order < 0) {
+                    diff.removedInteractions++;
+                    listener.interactionRemoved(first.protein1, first.protein2, first.score);
+                    hasFirst = first.next();
+                } else if (order > 0) {
+                    diff.addedInteractions++;
+                    listener.interactionAdded(second.protein1, second.protein2, second.score);
+                    hasSecond = second.next();
+                } else {
+                    if (Double.compare(first.score, second.score) != 0) {
+                        diff.changedScores++;
+                        listener.scoreChanged(first.protein1, first.protein2, first.score, second.score);
+                    }
+                    hasFirst = first.next();
+                    hasSecond = second.next();
+                }
+            }
+        }
+        return diff;
+    }
+
+    // Saves the union of two networks under a new name and returns its number of interactions. Proteins
+    // and communities are copied by the database; interactions reuse the existing rows unless the policy
+    // produces a new score.
+    public int merge(String firstNetwork, String secondNetwork, String targetNetwork, ScorePolicy policy) throws SQLException {
+        int firstId = requireNetworkId(firstNetwork);
+        int secondId = requireNetworkId(secondNetwork);
+        if (getNetworkIdByName(targetNetwork) != -1) {
+            throw new IllegalArgumentException("Network " + targetNetwork + " already exists");
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            int targetId = insertNetwork(targetNetwork);
+            copyLinks("Network_Protein", "protein_id", targetId, firstId, secondId);
+            copyLinks("Network_Community", "community_id", targetId, firstId, secondId);
+
+            int count = 0;
+            String linkSql = "INSERT OR IGNORE INTO Network_Interaction (network_id, interaction_id) VALUES (?, ?)";
+            // The policy's score may already be stored for the pair; the no-op update then returns that row's id
+            String insertSql = "INSERT INTO Interaction (protein1_id, protein2_id, confidenceScore) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (" + InteractionDAO.CANONICAL_KEY + ") DO UPDATE SET confidenceScore = excluded.confidenceScore "
+                    + "RETURNING id";
+            try (PairCursor first = new PairCursor(connection, firstId);
+                 PairCursor second = new PairCursor(connection, secondId);
+                 PreparedStatement link = connection.prepareStatement(linkSql);
+                 PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                link.setInt(1, targetId);
+                boolean hasFirst = first.next();
+                boolean hasSecond = second.next();
+                while (hasFirst || hasSecond) {
+                    int order = !hasFirst ? 1 : !hasSecond ? -1 : first.compareTo(second);
+                    int interactionId;
+                    if (order < 0) {
+                        interactionId = first.interactionId;
+                        hasFirst = first.next();
+                    } else if (order > 0) {
+                        interactionId = second.interactionId;
+                        hasSecond = second.next();
+                    } else {
+                        double score = policy.choose(first.score, second.score);
+                        if (Double.compare(score, first.score) == 0) {
+                            interactionId = first.interactionId;
+                        } else if (Double.compare(score, second.score) == 0) {
+                            interactionId = second.interactionId;
+                        } else {
+                            interactionId = insertInteraction(insert, first.protein1, first.protein2, score);
+                        }
+                        hasFirst = first.next();
+                        hasSecond = second.next();
+                    }
+                    link.setInt(2, interactionId);
+                    link.addBatch();
+                    if (++count % BATCH_SIZE == 0) {
+                        link.executeBatch();
+                    }
+                }
+                link.executeBatch();
+            }
+
+            connection.commit();
+            return count;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void copyLinks(String table, String column, int targetId, int firstId, int secondId) throws SQLException {
+        String sql = "INSERT OR IGNORE INTO " + table + " (network_id, " + column + ") "
+                + "SELECT ?, " + column + " FROM " + table + " WHERE network_id IN (?, ?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, targetId);
+            ps.setInt(2, firstId);
+            ps.setInt(3, secondId);
+            ps.executeUpdate();
+        }
+    }
+
+    private int insertInteraction(PreparedStatement insert, String protein1Id, String protein2Id, double score) throws SQLException {
+        insert.setString(1, protein1Id);
+        insert.setString(2, protein2Id);
+        insert.setDouble(3, score);
+        try (ResultSet rs = insert.executeQuery()) {
+            if (rs.next()) return rs.getInt(1);
+            else throw new SQLException("Failed to insert interaction");
+        }
+    }
+
+    private int insertNetwork(String networkName) throws SQLException {
+        String sql = "INSERT INTO Network (name) VALUES (?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, networkName);
+            ps.executeUpdate();
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) return rs.getInt(1);
+                else throw new SQLException("Failed to insert network");
+            }
+        }
+    }
+
+    private int requireNetworkId(String networkName) throws SQLException {
+        int networkId = getNetworkIdByName(networkName);
+        if (networkId == -1) {
+            throw new IllegalArgumentException("Network " + networkName + " does not exist");
+        }
+        return networkId;
+    }
+
+    private int getNetworkIdByName(String networkName) throws SQLException {
+        String sql = "SELECT id FROM Network WHERE name = ?";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, networkName);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getInt("id");
+                else return -1;
+            }
+        }
+    }
+
+    // SQLite sorts TEXT by its UTF-8 bytes, i.e. by code point, which String.compareTo does not match
+    // beyond U+FFFF
+    private static int compareIds(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) return Integer.compare(ca, cb);
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    // Protein ids of a network in ascending order, read off the (network_id, protein_id) key
+    private static final class IdCursor implements AutoCloseable {
+        private final PreparedStatement statement;
+        private final ResultSet rs;
+        String id;
+
+        IdCursor(Connection connection, int networkId) throws SQLException {
+            statement = connection.prepareStatement(
+                    "SELECT protein_id FROM Network_Protein WHERE network_id = ? ORDER BY protein_id");
+            statement.setInt(1, networkId);
+            rs = statement.executeQuery();
+        }
+
+        boolean next() throws SQLException {
+            if (!rs.next()) return false;
+            id = rs.getString(1);
+            return true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+
+    // Interactions of a network in canonical endpoint order, one per protein pair
+    private static final class PairCursor implements AutoCloseable {
+        private static final String SQL = """
+            SELECT MIN(i.protein1_id, i.protein2_id) AS p1, MAX(i.protein1_id, i.protein2_id) AS p2,
+                   i.confidenceScore, i.id
+            FROM Network_Interaction ni
+            JOIN Interaction i ON i.id = ni.interaction_id
+            WHERE ni.network_id = ?
+            ORDER BY p1, p2, i.id
+        """;
+
+        private final PreparedStatement statement;
+        private final ResultSet rs;
+        private boolean pending;
+        String protein1;
+        String protein2;
+        double score;
+        int interactionId;
+
+        PairCursor(Connection connection, int networkId) throws SQLException {
+            statement = connection.prepareStatement(SQL);
+            statement.setInt(1, networkId);
+            rs = statement.executeQuery();
+            pending = rs.next();
+        }
+
+        boolean next() throws SQLException {
+            if (!pending) return false;
+            protein1 = rs.getString(1);
+            protein2 = rs.getString(2);
+            score = rs.getDouble(3);
+            interactionId = rs.getInt(4);
+            // Saving a network again links the pair once more; the newest interaction wins
+            while ((pending = rs.next()) && protein1.equals(rs.getString(1)) && protein2.equals(rs.getString(2))) {
+                score = rs.getDouble(3);
+                interactionId = rs.getInt(4);
+            }
+            return true;
+        }
+
+        int compareTo(PairCursor other) {
+            int order = compareIds(protein1, other.protein1);
+            return order != 0 ? order : compareIds(protein2, other.protein2);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
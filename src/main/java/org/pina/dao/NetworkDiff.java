@@ -0,0 +1,76 @@
+package org.pina.dao;
+
+// Differences between two saved networks: counts, plus a listener that sees every difference as the
+// comparison streams past it. Interactions are reported with their endpoint ids in canonical order.
+public class NetworkDiff {
+
+    public interface Listener {
+        default void proteinAdded(String proteinId) {
+        }
+
+        default void proteinRemoved(String proteinId) {
+        }
+
+        default void interactionAdded(String protein1Id, String protein2Id, double score) {
+        }
+
+        default void interactionRemoved(String protein1Id, String protein2Id, double score) {
+        }
+
+        default void scoreChanged(String protein1Id, String protein2Id, double oldScore, double newScore) {
+        }
+    }
+
+    private final String firstNetwork;
+    private final String secondNetwork;
+    int addedProteins;
+    int removedProteins;
+    int addedInteractions;
+    int removedInteractions;
+    int changedScores;
+
+    NetworkDiff(String firstNetwork, String secondNetwork) {
+        this.firstNetwork = firstNetwork;
+        this.secondNetwork = secondNetwork;
+    }
+
+    public String getFirstNetwork() {
+        return firstNetwork;
+    }
+
+    public String getSecondNetwork() {
+        return secondNetwork;
+    }
+
+    public int getAddedProteins() {
+        return addedProteins;
+    }
+
+    public int getRemovedProteins() {
+        return removedProteins;
+    }
+
+    public int getAddedInteractions() {
+        return addedInteractions;
+    }
+
+    public int getRemovedInteractions() {
+        return removedInteractions;
+    }
+
+    public int getChangedScores() {
+        return changedScores;
+    }
+
+    public boolean isEmpty() {
+        return addedProteins + removedProteins + addedInteractions + removedInteractions + changedScores == 0;
+    }
+
+    @Override
+    public String toString() {
+        return firstNetwork + " -> " + secondNetwork + ": "
+                + "+" + addedProteins + "/-" + removedProteins + " proteins, "
+                + "+" + addedInteractions + "/-" + removedInteractions + " interactions, "
+                + changedScores + " changed scores";
+    }
+}
@@ -7,42 +7,58 @@ import java.sql.*;
 import java.util.*;
 public class PPINetworkDAO {
 
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
     private final Connection connection;
     private final ProteinDAO proteinDAO;
     private final InteractionDAO interactionDAO;
     private final CommunityDAO communityDAO;
+    private final int batchSize;
+    // When set, loads and listings run on a borrowed read-only connection instead of the writer
+    private final ConnectionPool pool;
 
     public PPINetworkDAO(Connection connection) {
+        this(connection, DEFAULT_BATCH_SIZE);
+    }
+
+    // batchSize is the number of rows sent per JDBC batch when saving
+    public PPINetworkDAO(Connection connection, int batchSize) {
+        this(connection, batchSize, null);
+    }
+
+    // Saves on the pool's writer, reads on its readers, so loads do not wait for a save in progress
+    public PPINetworkDAO(ConnectionPool pool) {
+        this(pool.writer(), DEFAULT_BATCH_SIZE, pool);
+    }
+
+    private PPINetworkDAO(Connection connection, int batchSize, ConnectionPool pool) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
         this.connection = connection;
         this.proteinDAO = new ProteinDAO(connection);
         this.interactionDAO = new InteractionDAO(connection);
         this.communityDAO = new CommunityDAO(connection);
+        this.batchSize = batchSize;
+        this.pool = pool;
     }
 
+    // A network loaded or saved under its current name only writes the edits journaled since then,
+    // removals included; any other network is written in full. Every statement is prepared once and
+    // fed in batches, and rows already stored are skipped by upserts.
     public void saveNetwork(PPINetwork network) throws SQLException {
+        ChangeJournal changes = network.getChanges();
         connection.setAutoCommit(false);
         try {
-            int networkId = insertOrGetNetworkId(network.getNetworkName());
-
-            for (Protein p : network.getProteins()) {
-                proteinDAO.addProteinIfNotExists(p);
-                linkProteinToNetwork(networkId, p.getUniprotId());
-            }
-
-            for (Interaction interaction : network.getInteractions()) {
-                int interactionId = interactionDAO.createOrGetInteractionId(interaction);
-                linkInteractionToNetwork(networkId, interactionId);
+            int networkId = -1;
+            if (changes.isSavedAs(network.getNetworkName())) {
+                networkId = getNetworkIdByName(network.getNetworkName());
             }
-
-            for (Community community : network.getCommunities()) {
-                communityDAO.addOrUpdateCommunity(community);
-                linkCommunityToNetwork(networkId, community.getId());
-
-                for (Protein p : community.getProteins()) {
-                    communityDAO.linkProteinToCommunity(community.getId(), p.getUniprotId());
-                }
+            if (networkId == -1) {
+                saveAll(insertOrGetNetworkId(network.getNetworkName()), network);
+            } else {
+                saveChanges(networkId, changes);
             }
-
             connection.commit();
         } catch (SQLException e) {
             connection.rollback();
@@ -50,9 +66,146 @@ public class PPINetworkDAO {
         } finally {
             connection.setAutoCommit(true);
         }
+        network.markSaved();
+    }
+
+    private void saveAll(int networkId, PPINetwork network) throws SQLException {
+        linkProteins(networkId, network.getProteins());
+        linkInteractions(networkId, network.getInteractions());
+        linkCommunities(networkId, network.getCommunities());
+    }
+
+    // Removals go first: a rescored interaction drops its link to the old score's row before the new
+    // row is linked
+    private void saveChanges(int networkId, ChangeJournal changes) throws SQLException {
+        List<Interaction> changedInteractions = new ArrayList<>(changes.getChangedInteractions());
+        List<Interaction> touchedPairs = new ArrayList<>(changes.getRemovedInteractions());
+        touchedPairs.addAll(changedInteractions);
+        unlinkInteractionPairs(networkId, touchedPairs);
+
+        List<String> removedProteins = new ArrayList<>();
+        for (Protein p : changes.getRemovedProteins()) {
+            removedProteins.add(p.getUniprotId());
+        }
+        unlink("Network_Protein", "protein_id", networkId, removedProteins);
+        List<String> removedCommunities = new ArrayList<>();
+        for (Community community : changes.getRemovedCommunities()) {
+            removedCommunities.add(community.getId());
+        }
+        unlink("Network_Community", "community_id", networkId, removedCommunities);
+
+        linkProteins(networkId, changes.getAddedProteins());
+        linkInteractions(networkId, changedInteractions);
+        linkCommunities(networkId, changes.getChangedCommunities());
+    }
+
+    private void linkProteins(int networkId, Collection<Protein> proteins) throws SQLException {
+        if (proteins.isEmpty()) return;
+        proteinDAO.addProteinsIfNotExist(proteins, batchSize);
+        String linkProteinSql = "INSERT INTO Network_Protein (network_id, protein_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        try (PreparedStatement ps = connection.prepareStatement(linkProteinSql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Protein p : proteins) {
+                ps.setInt(1, networkId);
+                ps.setString(2, p.getUniprotId());
+                batch.add();
+            }
+            batch.flush();
+        }
+    }
+
+    private void linkInteractions(int networkId, List<Interaction> interactions) throws SQLException {
+        if (interactions.isEmpty()) return;
+        interactionDAO.stageInteractions(interactions, batchSize);
+        String linkInteractionSql = "INSERT INTO Network_Interaction (network_id, interaction_id) "
+                + "SELECT ?, interaction_id FROM " + InteractionDAO.STAGED_TABLE + " WHERE true ON CONFLICT DO NOTHING";
+        try (PreparedStatement ps = connection.prepareStatement(linkInteractionSql)) {
+            ps.setInt(1, networkId);
+            ps.executeUpdate();
+        }
+        interactionDAO.dropStagedInteractions();
+    }
+
+    private void linkCommunities(int networkId, Collection<Community> communities) throws SQLException {
+        if (communities.isEmpty()) return;
+        communityDAO.addOrUpdateCommunities(communities, batchSize);
+        String linkCommunitySql = "INSERT INTO Network_Community (network_id, community_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        try (PreparedStatement ps = connection.prepareStatement(linkCommunitySql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Community community : communities) {
+                ps.setInt(1, networkId);
+                ps.setString(2, community.getId());
+                batch.add();
+            }
+            batch.flush();
+        }
+    }
+
+    private void unlink(String table, String column, int networkId, List<String> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        String sql = "DELETE FROM " + table + " WHERE network_id = ? AND " + column + " = ?";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (String id : ids) {
+                ps.setInt(1, networkId);
+                ps.setString(2, id);
+                batch.add();
+            }
+            batch.flush();
+        }
+    }
+
+    // Drops the network's links to every stored interaction between the given pairs, whatever its score
+    // and orientation. The pairs are staged in both orientations so one equality join finds them.
+    private void unlinkInteractionPairs(int networkId, List<Interaction> pairs) throws SQLException {
+        if (pairs.isEmpty()) return;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS temp.Staged_Pair");
+            stmt.execute("""
+                CREATE TEMP TABLE Staged_Pair (
+                    protein1_id TEXT NOT NULL,
+                    protein2_id TEXT NOT NULL,
+                    PRIMARY KEY (protein1_id, protein2_id)
+                ) WITHOUT ROWID
+            """);
+        }
+        String stageSql = "INSERT INTO temp.Staged_Pair (protein1_id, protein2_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        try (PreparedStatement ps = connection.prepareStatement(stageSql)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Interaction pair : pairs) {
+                String p1 = pair.getProtein1().getUniprotId();
+                String p2 = pair.getProtein2().getUniprotId();
+                ps.setString(1, p1);
+                ps.setString(2, p2);
+                batch.add();
+                ps.setString(1, p2);
+                ps.setString(2, p1);
+                batch.add();
+            }
+            batch.flush();
+        }
+        String deleteSql = """
+            DELETE FROM Network_Interaction
+            WHERE network_id = ? AND interaction_id IN (
+                SELECT i.id FROM temp.Staged_Pair s
+                JOIN Interaction i ON i.protein1_id = s.protein1_id AND i.protein2_id = s.protein2_id
+            )
+        """;
+        try (PreparedStatement ps = connection.prepareStatement(deleteSql)) {
+            ps.setInt(1, networkId);
+            ps.executeUpdate();
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE temp.Staged_Pair");
+        }
     }
 
     public List<String> listNetworkNames() throws SQLException {
+        if (pool != null) {
+            try (ConnectionPool.Lease lease = pool.borrowReader()) {
+                return new PPINetworkDAO(lease.connection()).listNetworkNames();
+            }
+        }
         List<String> networkNames = new ArrayList<>();
         String selectSql = "SELECT name FROM Network";
         try (PreparedStatement ps = connection.prepareStatement(selectSql)) {
@@ -65,22 +218,32 @@ public class PPINetworkDAO {
         return networkNames;
     }
 
+    // Endpoints and community members are resolved through an id -> protein map, and the members of all
+    // communities come from one joined query, so loading is linear in the rows read
     public PPINetwork loadNetwork(String networkName) throws SQLException {
+        if (pool != null) {
+            try (ConnectionPool.Lease lease = pool.borrowReader()) {
+                return new PPINetworkDAO(lease.connection()).loadNetwork(networkName);
+            }
+        }
         int networkId = getNetworkIdByName(networkName);
         if (networkId == -1) return null;
 
         List<Protein> proteins = loadProteinsByNetworkId(networkId);
+        Map<String, Protein> proteinsById = new HashMap<>(proteins.size() * 4 / 3 + 1);
+        for (Protein p : proteins) {
+            proteinsById.put(p.getUniprotId(), p);
+        }
 
-        List<Interaction> interactions = loadInteractionsByNetworkId(networkId, proteins);
-
-        Map<Protein, List<Protein>> adjacencyList = buildAdjacencyList(proteins, interactions);
+        List<Interaction> interactions = loadInteractionsByNetworkId(networkId, proteinsById);
 
-        Set<Community> communities = loadCommunitiesByNetworkId(networkId, proteins);
+        Set<Community> communities = loadCommunitiesByNetworkId(networkId, proteinsById);
 
-        return new PPINetwork(networkName, proteins, interactions, communities, adjacencyList);
+        PPINetwork network = new PPINetwork(networkName, proteins, interactions, communities);
+        network.markSaved();
+        return network;
     }
 
-
     private int insertOrGetNetworkId(String networkName) throws SQLException {
         String selectSql = "SELECT id FROM Network WHERE name = ?";
         try (PreparedStatement ps = connection.prepareStatement(selectSql)) {
@@ -100,33 +263,6 @@ public class PPINetworkDAO {
         }
     }
 
-    private void linkProteinToNetwork(int networkId, String proteinId) throws SQLException {
-        String sql = "INSERT OR IGNORE INTO Network_Protein (network_id, protein_id) VALUES (?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, networkId);
-            ps.setString(2, proteinId);
-            ps.executeUpdate();
-        }
-    }
-
-    private void linkInteractionToNetwork(int networkId, int interactionId) throws SQLException {
-        String sql = "INSERT OR IGNORE INTO Network_Interaction (network_id, interaction_id) VALUES (?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, networkId);
-            ps.setInt(2, interactionId);
-            ps.executeUpdate();
-        }
-    }
-
-    private void linkCommunityToNetwork(int networkId, String communityId) throws SQLException {
-        String sql = "INSERT OR IGNORE INTO Network_Community (network_id, community_id) VALUES (?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, networkId);
-            ps.setString(2, communityId);
-            ps.executeUpdate();
-        }
-    }
-
     private int getNetworkIdByName(String networkName) throws SQLException {
         String sql = "SELECT id FROM Network WHERE name = ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
@@ -138,13 +274,23 @@ public class PPINetworkDAO {
         }
     }
 
+    private int countLinks(String table, int networkId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + table + " WHERE network_id = ?";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, networkId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
     private List<Protein> loadProteinsByNetworkId(int networkId) throws SQLException {
         String sql = """
             SELECT p.* FROM Protein p
             JOIN Network_Protein np ON p.uniprotId = np.protein_id
             WHERE np.network_id = ?
         """;
-        List<Protein> proteins = new ArrayList<>();
+        List<Protein> proteins = new ArrayList<>(countLinks("Network_Protein", networkId));
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, networkId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -156,24 +302,21 @@ public class PPINetworkDAO {
         return proteins;
     }
 
-    private List<Interaction> loadInteractionsByNetworkId(int networkId, List<Protein> proteins) throws SQLException {
+    private List<Interaction> loadInteractionsByNetworkId(int networkId, Map<String, Protein> proteinsById) throws SQLException {
         String sql = """
-            SELECT i.* FROM Interaction i
+            SELECT i.protein1_id, i.protein2_id, i.confidenceScore FROM Interaction i
             JOIN Network_Interaction ni ON i.id = ni.interaction_id
             WHERE ni.network_id = ?
         """;
-        List<Interaction> interactions = new ArrayList<>();
+        List<Interaction> interactions = new ArrayList<>(countLinks("Network_Interaction", networkId));
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, networkId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    String p1Id = rs.getString("protein1_id");
-                    String p2Id = rs.getString("protein2_id");
-                    double score = rs.getDouble("confidenceScore");
-                    Protein p1 = findProteinById(proteins, p1Id);
-                    Protein p2 = findProteinById(proteins, p2Id);
+                    Protein p1 = proteinsById.get(rs.getString(1));
+                    Protein p2 = proteinsById.get(rs.getString(2));
                     if (p1 != null && p2 != null) {
-                        interactions.add(new Interaction(p1, p2, score));
+                        interactions.add(new Interaction(p1, p2, rs.getDouble(3)));
                     }
                 }
             }
@@ -181,63 +324,43 @@ public class PPINetworkDAO {
         return interactions;
     }
 
-    private Protein findProteinById(List<Protein> proteins, String uniprotId) {
-        for (Protein p : proteins) {
-            if (p.getUniprotId().equals(uniprotId)) return p;
-        }
-        return null;
-    }
-
-    private Map<Protein, List<Protein>> buildAdjacencyList(List<Protein> proteins, List<Interaction> interactions) {
-        Map<Protein, List<Protein>> adjacencyList = new HashMap<>();
-        for (Protein p : proteins) {
-            adjacencyList.put(p, new ArrayList<>());
-        }
-        for (Interaction i : interactions) {
-            adjacencyList.get(i.getProtein1()).add(i.getProtein2());
-            adjacencyList.get(i.getProtein2()).add(i.getProtein1());
-        }
-        return adjacencyList;
-    }
-
-    private Set<Community> loadCommunitiesByNetworkId(int networkId, List<Protein> proteins) throws SQLException {
+    // One row per (community, member), grouped by community id; communities without members come back
+    // once with a null member
+    private Set<Community> loadCommunitiesByNetworkId(int networkId, Map<String, Protein> proteinsById) throws SQLException {
         String sql = """
-            SELECT c.* FROM Community c
-            JOIN Network_Community nc ON c.id = nc.community_id
+            SELECT c.id, c.functionalAnnotation, cp.protein_id FROM Network_Community nc
+            JOIN Community c ON c.id = nc.community_id
+            LEFT JOIN Community_Protein cp ON cp.community_id = c.id
             WHERE nc.network_id = ?
+            ORDER BY c.id
         """;
-        Set<Community> communities = new HashSet<>();
+        Set<Community> communities = new LinkedHashSet<>();
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, networkId);
             try (ResultSet rs = ps.executeQuery()) {
+                String communityId = null;
+                String annotation = null;
+                Set<Protein> communityProteins = new HashSet<>();
                 while (rs.next()) {
-                    String communityId = rs.getString("id");
-                    String annotation = rs.getString("functionalAnnotation");
-                    Set<Protein> communityProteins = loadProteinsByCommunityId(communityId, proteins);
-                    communities.add(new Community(communityId, communityProteins, annotation));
-                }
-            }
-        }
-        return communities;
-    }
-
-    private Set<Protein> loadProteinsByCommunityId(String communityId, List<Protein> proteins) throws SQLException {
-        String sql = """
-            SELECT protein_id FROM Community_Protein WHERE community_id = ?
-        """;
-        Set<Protein> communityProteins = new HashSet<>();
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, communityId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String proteinId = rs.getString("protein_id");
-                    Protein p = findProteinById(proteins, proteinId);
+                    String id = rs.getString(1);
+                    if (!id.equals(communityId)) {
+                        if (communityId != null) {
+                            communities.add(new Community(communityId, communityProteins, annotation));
+                            communityProteins.clear();
+                        }
+                        communityId = id;
+                        annotation = rs.getString(2);
+                    }
+                    Protein p = proteinsById.get(rs.getString(3));
                     if (p != null) {
                         communityProteins.add(p);
                     }
                 }
+                if (communityId != null) {
+                    communities.add(new Community(communityId, communityProteins, annotation));
+                }
             }
         }
-        return communityProteins;
+        return communities;
     }
 }
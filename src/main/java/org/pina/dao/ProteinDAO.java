@@ -7,12 +7,19 @@ import org.pina.service.AuditService;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class ProteinDAO {
 
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO Protein (uniprotId, name, sequence, functions, type, tissueExpression, hostSpecies)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (uniprotId) DO NOTHING
+        """;
+
     private final Connection connection;
 
     public ProteinDAO(Connection connection) {
@@ -103,46 +110,59 @@ public class ProteinDAO {
 
 
     public boolean addProteinIfNotExists(Protein protein) throws SQLException {
-        if (exists(protein.getUniprotId(), protein.getName())) {
-            return false; // Protein already exists
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_IF_ABSENT_SQL)) {
+            bindProtein(ps, protein);
+            int rows = ps.executeUpdate();
+            if (rows > 0) {
+                AuditService.INSTANCE.log("saved_new_protein_in_database|" + protein.getName());
+            }
+            return rows > 0;
         }
+    }
 
-        String sql = """
-            INSERT INTO Protein (uniprotId, name, sequence, functions, type, tissueExpression, hostSpecies)
-            VALUES (?, ?, ?, ?, ?, ?, ?)
-        """;
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, protein.getUniprotId());
-            ps.setString(2, protein.getName());
-            ps.setString(3, protein.getSequence());
-
-            // Serialize functions set as CSV string
-            Set<String> functions = protein.getFunctions();
-            String functionsCsv = String.join(",", functions);
-            ps.setString(4, functionsCsv);
-
-            // Determine type and subclass fields
-            String type = "Protein";
-            String tissueExpression = null;
-            String hostSpecies = null;
-
-            if (protein instanceof org.pina.model.HumanProtein humanProtein) {
-                type = "Human";
-                tissueExpression = humanProtein.getTissueExpression();
-            } else if (protein instanceof org.pina.model.ViralProtein viralProtein) {
-                type = "Viral";
-                hostSpecies = viralProtein.getHostSpecies();
+    // Inserts the proteins not stored yet, batchSize rows per round trip; returns how many were new
+    public int addProteinsIfNotExist(Collection<Protein> proteins, int batchSize) throws SQLException {
+        int added = 0;
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_IF_ABSENT_SQL)) {
+            JdbcBatch batch = new JdbcBatch(ps, batchSize);
+            for (Protein protein : proteins) {
+                bindProtein(ps, protein);
+                added += batch.add();
             }
+            added += batch.flush();
+        }
+        if (added > 0) {
+            AuditService.INSTANCE.log("saved_new_proteins_in_database|" + added);
+        }
+        return added;
+    }
 
-            ps.setString(5, type);
-            ps.setString(6, tissueExpression);
-            ps.setString(7, hostSpecies);
-
-            int rows = ps.executeUpdate();
-            AuditService.INSTANCE.log("saved_new_protein_in_database|"+ protein.getName());
-            return rows > 0;
+    private static void bindProtein(PreparedStatement ps, Protein protein) throws SQLException {
+        ps.setString(1, protein.getUniprotId());
+        ps.setString(2, protein.getName());
+        ps.setString(3, protein.getSequence());
+
+        // Serialize functions set as CSV string
+        Set<String> functions = protein.getFunctions();
+        String functionsCsv = String.join(",", functions);
+        ps.setString(4, functionsCsv);
+
+        // Determine type and subclass fields
+        String type = "Protein";
+        String tissueExpression = null;
+        String hostSpecies = null;
+
+        if (protein instanceof HumanProtein humanProtein) {
+            type = "Human";
+            tissueExpression = humanProtein.getTissueExpression();
+        } else if (protein instanceof ViralProtein viralProtein) {
+            type = "Viral";
+            hostSpecies = viralProtein.getHostSpecies();
         }
+
+        ps.setString(5, type);
+        ps.setString(6, tissueExpression);
+        ps.setString(7, hostSpecies);
     }
 
     public List<String> getAllProteinNames() throws SQLException {
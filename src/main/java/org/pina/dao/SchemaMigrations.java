@@ -0,0 +1,140 @@
+package org.pina.dao;
+
+import org.pina.service.AuditService;
+
+import java.sql.*;
+import java.util.List;
+
+// Brings a database up to the schema this version of PINA expects. Migrations run once each, in order,
+// every one in its own transaction together with its schema_version row. Databases created before
+// versioning have no schema_version table; they start at version 0 and upgrade in place, since the first
+// migration only creates the tables that are missing.
+public final class SchemaMigrations {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    // Append only: a released migration must never change, as databases record having applied it
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create base tables", DatabaseSetup::createAllTables),
+            new Migration(2, "Index proteins by name", conn -> execute(conn,
+                    "CREATE INDEX IF NOT EXISTS idx_protein_name ON Protein (name)")),
+            new Migration(3, "Index interactions by endpoint", conn -> execute(conn,
+                    "CREATE INDEX IF NOT EXISTS idx_interaction_protein1 ON Interaction (protein1_id, protein2_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_interaction_protein2 ON Interaction (protein2_id, protein1_id)")),
+            new Migration(4, "Unique canonical interaction key", SchemaMigrations::addCanonicalInteractionKey)
+    );
+
+    private SchemaMigrations() {
+    }
+
+    // Applies every pending migration and returns the resulting schema version
+    public static int migrate(Connection conn) throws SQLException {
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INTEGER PRIMARY KEY,
+                description TEXT NOT NULL,
+                applied_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+        """);
+        int version = currentVersion(conn);
+        if (version > latestVersion()) {
+            throw new SQLException("Database schema version " + version
+                    + " is newer than this application supports (" + latestVersion() + ")");
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= version) continue;
+                try {
+                    migration.step.apply(conn);
+                    String sql = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        ps.setInt(1, migration.version);
+                        ps.setString(2, migration.description);
+                        ps.executeUpdate();
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Schema migration " + migration.version + " ("
+                            + migration.description + ") failed", e);
+                }
+                version = migration.version;
+                AuditService.INSTANCE.log("schema_migrated|" + version);
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return version;
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static void execute(Connection conn, String... sqls) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : sqls) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    // One row per unordered endpoint pair and score. Rows that would collide are folded into the lowest
+    // id first, with their network links moved over, so existing databases satisfy the index.
+    private static void addCanonicalInteractionKey(Connection conn) throws SQLException {
+        execute(conn, """
+            CREATE TEMP TABLE Duplicate_Interaction AS
+            SELECT i.id AS duplicate_id, k.keep_id
+            FROM Interaction i
+            JOIN (
+                SELECT MIN(id) AS keep_id, MIN(protein1_id, protein2_id) AS low_id,
+                       MAX(protein1_id, protein2_id) AS high_id, confidenceScore
+                FROM Interaction
+                GROUP BY low_id, high_id, confidenceScore
+                HAVING COUNT(*) > 1
+            ) k ON MIN(i.protein1_id, i.protein2_id) = k.low_id
+               AND MAX(i.protein1_id, i.protein2_id) = k.high_id
+               AND i.confidenceScore = k.confidenceScore
+            WHERE i.id <> k.keep_id
+        """, """
+            INSERT OR IGNORE INTO Network_Interaction (network_id, interaction_id)
+            SELECT ni.network_id, d.keep_id
+            FROM Network_Interaction ni
+            JOIN temp.Duplicate_Interaction d ON d.duplicate_id = ni.interaction_id
+        """, """
+            DELETE FROM Network_Interaction
+            WHERE interaction_id IN (SELECT duplicate_id FROM temp.Duplicate_Interaction)
+        """, """
+            DELETE FROM Interaction
+            WHERE id IN (SELECT duplicate_id FROM temp.Duplicate_Interaction)
+        """,
+                "DROP TABLE temp.Duplicate_Interaction",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_interaction_canonical ON Interaction ("
+                        + "MIN(protein1_id, protein2_id), MAX(protein1_id, protein2_id), confidenceScore)");
+    }
+}
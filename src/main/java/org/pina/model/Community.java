@@ -1,18 +1,20 @@
 package org.pina.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class Community {
     private String id;
+    // Never modified after assignment, so getProteins can hand out the set itself
     private Set<Protein> proteins;
     private String functionalAnnotation;
 
     public Community(String id, Set<Protein> proteins, String functionalAnnotation) {
         this.id = id;
-        this.proteins = new HashSet<>(proteins);
+        this.proteins = Collections.unmodifiableSet(new HashSet<>(proteins));
         this.functionalAnnotation = functionalAnnotation;
     }
 
@@ -25,11 +27,11 @@ public class Community {
     }
 
     public Set<Protein> getProteins() {
-        return Set.copyOf(proteins);
+        return proteins;
     }
 
     public void setProteins(Set<Protein> proteins) {
-        this.proteins = new HashSet<>(proteins);
+        this.proteins = Collections.unmodifiableSet(new HashSet<>(proteins));
     }
 
     public String getFunctionalAnnotation() {
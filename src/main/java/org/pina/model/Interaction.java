@@ -49,7 +49,8 @@ public class Interaction {
 
     @Override
     public int hashCode() {
-        return Objects.hash(protein1, protein2) + Objects.hash(protein2, protein1);
+        // Order-independent to match equals, without the varargs allocation of Objects.hash
+        return Objects.hashCode(protein1) + Objects.hashCode(protein2);
     }
 
 }
@@ -0,0 +1,138 @@
+package org.pina.service;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+// Brandes betweenness on hop distance. Single-source passes run across the fork-join pool; each worker
+// thread accumulates into its own array and the arrays are summed once at the end.
+//
+// Scores are for unordered pairs: the number of shortest paths between other proteins that run
+// through a protein, each path weighted by 1 / (number of shortest paths between its endpoints).
+public final class BetweennessCentrality {
+
+    private static final int SOURCES_PER_TASK = 8;
+
+    private final ForkJoinPool pool;
+
+    public BetweennessCentrality() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BetweennessCentrality(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public double[] exact(CsrGraph graph) {
+        int[] sources = Partitions.identity(graph.nodeCount());
+        return accumulate(graph, sources, 0.5);
+    }
+
+    // Samples sources without replacement. With probability at least 1 - delta every score is within
+    // epsilon * n(n - 2) / 2 of the exact value (Hoeffding bound with a union bound over all proteins).
+    public double[] approximate(CsrGraph graph, double epsilon, double delta, long seed) {
+        int n = graph.nodeCount();
+        int k = sampleSize(n, epsilon, delta);
+        if (k >= n) {
+            return exact(graph);
+        }
+        int[] sources = Arrays.copyOf(Partitions.shuffled(n, new Random(seed)), k);
+        return accumulate(graph, sources, 0.5 * n / k);
+    }
+
+    public static int sampleSize(int n, double epsilon, double delta) {
+        if (!(epsilon > 0) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("Need epsilon > 0 and 0 < delta < 1");
+        }
+        if (n < 3) return n;
+        double k = Math.ceil(Math.log(2.0 * n / delta) / (2 * epsilon * epsilon));
+        return (int) Math.min(n, k);
+    }
+
+    private double[] accumulate(CsrGraph graph, int[] sources, double scale) {
+        int n = graph.nodeCount();
+        Queue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Workspace> local = ThreadLocal.withInitial(() -> {
+            Workspace w = new Workspace(n);
+            workspaces.add(w);
+            return w;
+        });
+        ParallelRange.forEach(pool, 0, sources.length, SOURCES_PER_TASK, (from, to) -> {
+            Workspace w = local.get();
+            for (int i = from; i < to; i++) {
+                w.singleSource(graph.offsets(), graph.neighbors(), sources[i]);
+            }
+        });
+
+        double[] centrality = new double[n];
+        for (Workspace w : workspaces) {
+            for (int v = 0; v < n; v++) {
+                centrality[v] += w.centrality[v];
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            centrality[v] *= scale;
+        }
+        return centrality;
+    }
+
+    private static final class Workspace {
+        final double[] centrality;
+        final int[] distance;
+        final double[] sigma;
+        final double[] dependency;
+        final int[] queue;
+
+        Workspace(int n) {
+            centrality = new double[n];
+            distance = new int[n];
+            sigma = new double[n];
+            dependency = new double[n];
+            queue = new int[n];
+            Arrays.fill(distance, -1);
+        }
+
+        void singleSource(int[] offsets, int[] neighbors, int source) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            distance[source] = 0;
+            sigma[source] = 1;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int w = neighbors[i];
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        queue[tail++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1) {
+                        sigma[w] += sigma[v];
+                    }
+                }
+            }
+
+            // The BFS queue doubles as the stack: walk it backwards to push dependencies to predecessors
+            for (int q = tail - 1; q > 0; q--) {
+                int w = queue[q];
+                double share = (1 + dependency[w]) / sigma[w];
+                for (int i = offsets[w]; i < offsets[w + 1]; i++) {
+                    int v = neighbors[i];
+                    if (distance[v] == distance[w] - 1) {
+                        dependency[v] += sigma[v] * share;
+                    }
+                }
+                centrality[w] += dependency[w];
+            }
+
+            for (int q = 0; q < tail; q++) {
+                int v = queue[q];
+                distance[v] = -1;
+                sigma[v] = 0;
+                dependency[v] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.pina.service;
+
+import org.pina.model.Community;
+import org.pina.model.Interaction;
+import org.pina.model.Protein;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Edits made to a PPINetwork since it last matched its saved copy, so that saving writes only the deltas.
+// Only the net effect per protein, protein pair and community is kept, keyed the way the database keys
+// them. Nothing is recorded until the network has been loaded or saved once.
+public final class ChangeJournal {
+
+    private String savedName;
+    private final Map<String, Protein> addedProteins = new LinkedHashMap<>();
+    private final Map<String, Protein> removedProteins = new LinkedHashMap<>();
+    // Added or rescored interactions; a later rescore of the same pair replaces the entry with its new object
+    private final Map<String, Interaction> changedInteractions = new LinkedHashMap<>();
+    private final Map<String, Interaction> removedInteractions = new LinkedHashMap<>();
+    private final Map<String, Community> changedCommunities = new LinkedHashMap<>();
+    private final Map<String, Community> removedCommunities = new LinkedHashMap<>();
+
+    ChangeJournal() {
+    }
+
+    private static String pairKey(Interaction interaction) {
+        String a = interaction.getProtein1().getUniprotId();
+        String b = interaction.getProtein2().getUniprotId();
+        return a.compareTo(b) <= 0 ? a + '\u0000' + b : b + '\u0000' + a;
+    }
+
+    void proteinAdded(Protein protein) {
+        if (savedName == null) return;
+        removedProteins.remove(protein.getUniprotId());
+        addedProteins.put(protein.getUniprotId(), protein);
+    }
+
+    void proteinRemoved(Protein protein) {
+        if (savedName == null) return;
+        addedProteins.remove(protein.getUniprotId());
+        removedProteins.put(protein.getUniprotId(), protein);
+    }
+
+    void interactionChanged(Interaction interaction) {
+        if (savedName == null) return;
+        String key = pairKey(interaction);
+        removedInteractions.remove(key);
+        changedInteractions.put(key, interaction);
+    }
+
+    void interactionRemoved(Interaction interaction) {
+        if (savedName == null) return;
+        String key = pairKey(interaction);
+        changedInteractions.remove(key);
+        removedInteractions.put(key, interaction);
+    }
+
+    void communityChanged(Community community) {
+        if (savedName == null) return;
+        removedCommunities.remove(community.getId());
+        changedCommunities.put(community.getId(), community);
+    }
+
+    void communityRemoved(Community community) {
+        if (savedName == null) return;
+        changedCommunities.remove(community.getId());
+        removedCommunities.put(community.getId(), community);
+    }
+
+    // Starts a fresh journal against the copy saved under the given name
+    void reset(String networkName) {
+        savedName = networkName;
+        addedProteins.clear();
+        removedProteins.clear();
+        changedInteractions.clear();
+        removedInteractions.clear();
+        changedCommunities.clear();
+        removedCommunities.clear();
+    }
+
+    // True when the journal holds every edit since the network was saved under this name
+    public boolean isSavedAs(String networkName) {
+        return savedName != null && savedName.equals(networkName);
+    }
+
+    public boolean isEmpty() {
+        return addedProteins.isEmpty() && removedProteins.isEmpty() && changedInteractions.isEmpty()
+                && removedInteractions.isEmpty() && changedCommunities.isEmpty() && removedCommunities.isEmpty();
+    }
+
+    public int size() {
+        return addedProteins.size() + removedProteins.size() + changedInteractions.size()
+                + removedInteractions.size() + changedCommunities.size() + removedCommunities.size();
+    }
+
+    public Collection<Protein> getAddedProteins() {
+        return Collections.unmodifiableCollection(addedProteins.values());
+    }
+
+    public Collection<Protein> getRemovedProteins() {
+        return Collections.unmodifiableCollection(removedProteins.values());
+    }
+
+    public Collection<Interaction> getChangedInteractions() {
+        return Collections.unmodifiableCollection(changedInteractions.values());
+    }
+
+    public Collection<Interaction> getRemovedInteractions() {
+        return Collections.unmodifiableCollection(removedInteractions.values());
+    }
+
+    public Collection<Community> getChangedCommunities() {
+        return Collections.unmodifiableCollection(changedCommunities.values());
+    }
+
+    public Collection<Community> getRemovedCommunities() {
+        return Collections.unmodifiableCollection(removedCommunities.values());
+    }
+}
@@ -0,0 +1,60 @@
+package org.pina.service;
+
+import org.pina.model.Protein;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+
+// Chooses the id of a newly detected community. The built-in automatic namers are deterministic and
+// stateless, so detection can run unattended and on several networks in parallel.
+@FunctionalInterface
+public interface CommunityNamer {
+
+    // method is the detector that found the community ("component", "louvain", "lpa"),
+    // rank its 1-based position among the communities of that run, hub its highest-degree protein
+    String name(String networkName, String method, int rank, Set<Protein> proteins, Protein hub);
+
+    // <network>-<method>-<rank>
+    static CommunityNamer byRank() {
+        return (networkName, method, rank, proteins, hub) -> networkName + "-" + method + "-" + rank;
+    }
+
+    // <network>-<method>-<hub protein name>
+    static CommunityNamer byHub() {
+        return (networkName, method, rank, proteins, hub) -> networkName + "-" + method + "-" + hub.getName();
+    }
+
+    // <network>-<method>-<hash of the sorted member UniProt ids>, stable for the same member set
+    static CommunityNamer byMembers() {
+        return (networkName, method, rank, proteins, hub) -> {
+            List<String> ids = new ArrayList<>(proteins.size());
+            for (Protein p : proteins) {
+                ids.add(p.getUniprotId());
+            }
+            ids.sort(null);
+            long hash = 0xcbf29ce484222325L;
+            for (String id : ids) {
+                for (int i = 0; i < id.length(); i++) {
+                    hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+                }
+                hash = (hash ^ ',') * 0x100000001b3L;
+            }
+            return networkName + "-" + method + "-" + Long.toHexString(hash);
+        };
+    }
+
+    // Asks on the console, falling back to the given namer when the answer is blank
+    static CommunityNamer interactive(Scanner scanner, CommunityNamer fallback) {
+        return (networkName, method, rank, proteins, hub) -> {
+            String suggested = fallback.name(networkName, method, rank, proteins, hub);
+            System.out.println("Enter community name for new community with proteins (blank for " + suggested + "):");
+            for (Protein p : proteins) {
+                System.out.println(" - " + p.getName() + " (" + p.getUniprotId() + ")");
+            }
+            String communityName = scanner.nextLine().trim();
+            return communityName.isEmpty() ? suggested : communityName;
+        };
+    }
+}
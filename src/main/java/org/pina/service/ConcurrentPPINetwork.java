@@ -0,0 +1,252 @@
+package org.pina.service;
+
+import org.pina.model.Community;
+import org.pina.model.Interaction;
+import org.pina.model.Protein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Network under construction by many threads at once, e.g. while fetching STRING neighbourhoods for
+// several seed proteins in parallel. Proteins and interactions are spread over lock stripes, so writers
+// only contend when they hit the same stripe; protein ids resolve through a lock-free map.
+//
+// snapshot() briefly takes every stripe lock, copies the primitive stripe arrays and builds a regular
+// PPINetwork from the copy outside the locks, so analytics always see a state between whole operations.
+public final class ConcurrentPPINetwork {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final String networkName;
+    private final Set<Community> communities;
+    private final ConcurrentHashMap<String, Integer> nodeIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private final ProteinStripe[] proteinStripes;
+    private final EdgeStripe[] edgeStripes;
+    private final int stripeShift;
+
+    public ConcurrentPPINetwork(String networkName) {
+        this(networkName, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentPPINetwork(String networkName, int stripes) {
+        this(networkName, stripes, Set.of());
+    }
+
+    // Starts from the proteins, interactions and communities of an existing network
+    public ConcurrentPPINetwork(PPINetwork base) {
+        this(base.getNetworkName(), DEFAULT_STRIPES, base.getCommunities());
+        for (Protein protein : base.getProteins()) {
+            addProtein(protein);
+        }
+        for (Interaction interaction : base.getInteractions()) {
+            addInteraction(interaction.getProtein1(), interaction.getProtein2(), interaction.getConfidenceScore());
+        }
+    }
+
+    private ConcurrentPPINetwork(String networkName, int stripes, Set<Community> communities) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is required: " + stripes);
+        }
+        int count = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.networkName = networkName;
+        this.communities = communities;
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+        proteinStripes = new ProteinStripe[count];
+        edgeStripes = new EdgeStripe[count];
+        for (int i = 0; i < count; i++) {
+            proteinStripes[i] = new ProteinStripe();
+            edgeStripes[i] = new EdgeStripe();
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Stripes are picked from the high hash bits; the low bits drive probing inside the stripe's index
+    private int stripeOf(int hash) {
+        return stripeShift == 32 ? 0 : (hash >>> stripeShift);
+    }
+
+    public String getNetworkName() {
+        return networkName;
+    }
+
+    public boolean addProtein(Protein protein) {
+        String id = key(protein.getUniprotId());
+        if (nodeIds.containsKey(id)) {
+            return false;
+        }
+        ProteinStripe stripe = proteinStripes[stripeOf(EdgeIndex.mix(id.hashCode()))];
+        stripe.lock.lock();
+        try {
+            if (nodeIds.containsKey(id)) {
+                return false;
+            }
+            // The id is taken and published under the stripe lock, so a snapshot holding every lock sees
+            // exactly the ids 0 .. nextNode - 1
+            int node = nextNode.getAndIncrement();
+            stripe.add(node, protein);
+            nodeIds.put(id, node);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean containsProteinId(String uniprotId) {
+        return nodeIds.containsKey(key(uniprotId));
+    }
+
+    // Adds the interaction, or updates its score when the pair is already connected
+    public void addInteraction(Protein p1, Protein p2, double score) {
+        int u = nodeId(p1);
+        int v = nodeId(p2);
+        EdgeStripe stripe = edgeStripes[stripeOf(EdgeIndex.mix(EdgeIndex.key(u, v)))];
+        stripe.lock.lock();
+        try {
+            stripe.put(u, v, score);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private int nodeId(Protein protein) {
+        Integer id = nodeIds.get(key(protein.getUniprotId()));
+        if (id == null) {
+            throw new IllegalArgumentException("Protein " + protein.getName() + " is not part of network " + networkName);
+        }
+        return id;
+    }
+
+    public int getProteinCount() {
+        return nodeIds.size();
+    }
+
+    // Exact when no writer is running, otherwise a moment's estimate
+    public int getInteractionCount() {
+        int count = 0;
+        for (EdgeStripe stripe : edgeStripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    // Consistent copy as a regular network: every operation that finished before the call is included,
+    // none is included halfway
+    public PPINetwork snapshot() {
+        Protein[][] stripeProteins = new Protein[proteinStripes.length][];
+        int[][] stripeNodes = new int[proteinStripes.length][];
+        int[][] stripeEndpoints = new int[edgeStripes.length][];
+        double[][] stripeScores = new double[edgeStripes.length][];
+        int proteinCount;
+        lockAll();
+        try {
+            proteinCount = nextNode.get();
+            for (int i = 0; i < proteinStripes.length; i++) {
+                ProteinStripe stripe = proteinStripes[i];
+                stripeProteins[i] = Arrays.copyOf(stripe.proteins, stripe.size);
+                stripeNodes[i] = Arrays.copyOf(stripe.nodes, stripe.size);
+            }
+            for (int i = 0; i < edgeStripes.length; i++) {
+                EdgeStripe stripe = edgeStripes[i];
+                stripeEndpoints[i] = Arrays.copyOf(stripe.endpoints, 2 * stripe.size);
+                stripeScores[i] = Arrays.copyOf(stripe.scores, stripe.size);
+            }
+        } finally {
+            unlockAll();
+        }
+
+        Protein[] byNode = new Protein[proteinCount];
+        for (int i = 0; i < stripeProteins.length; i++) {
+            for (int j = 0; j < stripeProteins[i].length; j++) {
+                byNode[stripeNodes[i][j]] = stripeProteins[i][j];
+            }
+        }
+        int edgeCount = 0;
+        for (double[] scores : stripeScores) {
+            edgeCount += scores.length;
+        }
+        List<Interaction> interactions = new ArrayList<>(edgeCount);
+        for (int i = 0; i < stripeScores.length; i++) {
+            for (int e = 0; e < stripeScores[i].length; e++) {
+                Protein p1 = byNode[stripeEndpoints[i][2 * e]];
+                Protein p2 = byNode[stripeEndpoints[i][2 * e + 1]];
+                interactions.add(new Interaction(p1, p2, stripeScores[i][e]));
+            }
+        }
+        return new PPINetwork(networkName, Arrays.asList(byNode), interactions, communities);
+    }
+
+    // Always in stripe order, and writers hold at most one stripe lock, so this cannot deadlock
+    private void lockAll() {
+        for (ProteinStripe stripe : proteinStripes) {
+            stripe.lock.lock();
+        }
+        for (EdgeStripe stripe : edgeStripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (EdgeStripe stripe : edgeStripes) {
+            stripe.lock.unlock();
+        }
+        for (ProteinStripe stripe : proteinStripes) {
+            stripe.lock.unlock();
+        }
+    }
+
+    private static final class ProteinStripe {
+        final ReentrantLock lock = new ReentrantLock();
+        Protein[] proteins = new Protein[16];
+        int[] nodes = new int[16];
+        int size;
+
+        void add(int node, Protein protein) {
+            if (size == proteins.length) {
+                proteins = Arrays.copyOf(proteins, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            proteins[size] = protein;
+            nodes[size++] = node;
+        }
+    }
+
+    private static final class EdgeStripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final EdgeIndex index = new EdgeIndex();
+        int[] endpoints = new int[32];
+        double[] scores = new double[16];
+        volatile int size;
+
+        int size() {
+            return size;
+        }
+
+        void put(int u, int v, double score) {
+            int slot = index.get(u, v);
+            if (slot >= 0) {
+                scores[slot] = score;
+                return;
+            }
+            slot = size;
+            if (slot == scores.length) {
+                scores = Arrays.copyOf(scores, slot * 2);
+                endpoints = Arrays.copyOf(endpoints, slot * 4);
+            }
+            endpoints[2 * slot] = u;
+            endpoints[2 * slot + 1] = v;
+            scores[slot] = score;
+            index.put(u, v, slot);
+            size = slot + 1;
+        }
+    }
+}
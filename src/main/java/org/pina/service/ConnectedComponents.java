@@ -0,0 +1,175 @@
+package org.pina.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Connected components by lock-free union-find: edges are processed in parallel chunks and every
+// union links the larger root under the smaller one with a CAS, so no cycles can form.
+public final class ConnectedComponents {
+
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+
+    private final int[] componentOf;
+    private final int componentCount;
+
+    private ConnectedComponents(int[] componentOf, int componentCount) {
+        this.componentOf = componentOf;
+        this.componentCount = componentCount;
+    }
+
+    public static ConnectedComponents compute(CsrGraph graph) {
+        return compute(graph, ForkJoinPool.commonPool());
+    }
+
+    public static ConnectedComponents compute(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            parent.set(v, v);
+        }
+        int[] neighbors = graph.neighbors();
+        if (neighbors.length <= SEQUENTIAL_THRESHOLD) {
+            new UnionTask(graph.offsets(), neighbors, parent, 0, neighbors.length).compute();
+        } else {
+            pool.invoke(new UnionTask(graph.offsets(), neighbors, parent, 0, neighbors.length));
+        }
+
+        // Relabel roots densely in order of first appearance so ids are deterministic
+        int[] componentOf = new int[n];
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            int root = find(parent, v);
+            if (label[root] < 0) {
+                label[root] = count++;
+            }
+            componentOf[v] = label[root];
+        }
+        return new ConnectedComponents(componentOf, count);
+    }
+
+    // Densely relabels arbitrary component labels in order of first appearance
+    static ConnectedComponents fromLabels(int[] labels, int labelBound) {
+        int[] dense = new int[labelBound];
+        Arrays.fill(dense, -1);
+        int[] componentOf = new int[labels.length];
+        int count = 0;
+        for (int v = 0; v < labels.length; v++) {
+            if (dense[labels[v]] < 0) {
+                dense[labels[v]] = count++;
+            }
+            componentOf[v] = dense[labels[v]];
+        }
+        return new ConnectedComponents(componentOf, count);
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int componentOf(int v) {
+        return componentOf[v];
+    }
+
+    public int[] componentIds() {
+        return componentOf.clone();
+    }
+
+    // Node indexes grouped by component id, each group in ascending node order
+    public int[][] groups() {
+        int[] start = new int[componentCount + 1];
+        for (int c : componentOf) {
+            start[c + 1]++;
+        }
+        int[][] groups = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            groups[c] = new int[start[c + 1]];
+            start[c + 1] = 0;
+        }
+        for (int v = 0; v < componentOf.length; v++) {
+            int c = componentOf[v];
+            groups[c][start[c + 1]++] = v;
+        }
+        return groups;
+    }
+
+    static int find(AtomicIntegerArray parent, int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) return x;
+            int grandparent = parent.get(p);
+            if (p != grandparent) {
+                // Path halving; losing the race is harmless because parents only ever move rootwards
+                parent.compareAndSet(x, p, grandparent);
+            }
+            x = grandparent;
+        }
+    }
+
+    static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) return;
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) return;
+        }
+    }
+
+    // Unions the edges stored at neighbor positions [from, to) of the CSR arrays; tasks are never serialized
+    @SuppressWarnings("serial")
+    private static final class UnionTask extends RecursiveAction {
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final AtomicIntegerArray parent;
+        private final int from;
+        private final int to;
+
+        UnionTask(int[] offsets, int[] neighbors, AtomicIntegerArray parent, int from, int to) {
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new UnionTask(offsets, neighbors, parent, from, mid),
+                        new UnionTask(offsets, neighbors, parent, mid, to));
+                return;
+            }
+            int u = rowOf(from);
+            for (int i = from; i < to; i++) {
+                while (i >= offsets[u + 1]) {
+                    u++;
+                }
+                int v = neighbors[i];
+                // Each undirected edge is stored twice; one direction is enough
+                if (u < v) {
+                    union(parent, u, v);
+                }
+            }
+        }
+
+        private int rowOf(int position) {
+            int lo = 0;
+            int hi = offsets.length - 2;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] <= position) lo = mid;
+                else hi = mid - 1;
+            }
+            return lo;
+        }
+    }
+}
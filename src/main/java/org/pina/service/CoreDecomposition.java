@@ -0,0 +1,87 @@
+package org.pina.service;
+
+// k-core decomposition by bucket peeling (Batagelj & Zaversnik): nodes are kept sorted by current degree
+// in one array with bucket starts, and removing the minimum-degree node moves each higher-degree
+// neighbour down one bucket with a swap, so the whole decomposition is O(V + E).
+public final class CoreDecomposition {
+
+    private final int[] coreNumber;
+    private final int maxCore;
+
+    private CoreDecomposition(int[] coreNumber, int maxCore) {
+        this.coreNumber = coreNumber;
+        this.maxCore = maxCore;
+    }
+
+    public static CoreDecomposition compute(CsrGraph graph) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+
+        int[] degree = new int[n];
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            degree[v] = offsets[v + 1] - offsets[v];
+            maxDegree = Math.max(maxDegree, degree[v]);
+        }
+
+        // Counting sort by degree: bucketStart[d] is the first position of degree d in order
+        int[] bucketStart = new int[maxDegree + 1];
+        for (int v = 0; v < n; v++) {
+            bucketStart[degree[v]]++;
+        }
+        int start = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            int count = bucketStart[d];
+            bucketStart[d] = start;
+            start += count;
+        }
+        int[] order = new int[n];
+        int[] position = new int[n];
+        for (int v = 0; v < n; v++) {
+            position[v] = bucketStart[degree[v]]++;
+            order[position[v]] = v;
+        }
+        for (int d = maxDegree; d > 0; d--) {
+            bucketStart[d] = bucketStart[d - 1];
+        }
+        bucketStart[0] = 0;
+
+        // Once processed, degree[v] is the core number of v
+        int maxCore = 0;
+        for (int i = 0; i < n; i++) {
+            int v = order[i];
+            maxCore = Math.max(maxCore, degree[v]);
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int u = neighbors[e];
+                if (degree[u] > degree[v]) {
+                    int du = degree[u];
+                    int first = order[bucketStart[du]];
+                    if (first != u) {
+                        int pu = position[u];
+                        int pf = bucketStart[du];
+                        order[pu] = first;
+                        position[first] = pu;
+                        order[pf] = u;
+                        position[u] = pf;
+                    }
+                    bucketStart[du]++;
+                    degree[u]--;
+                }
+            }
+        }
+        return new CoreDecomposition(degree, maxCore);
+    }
+
+    public int coreNumber(int v) {
+        return coreNumber[v];
+    }
+
+    public int maxCore() {
+        return maxCore;
+    }
+
+    public int[] coreNumbers() {
+        return coreNumber.clone();
+    }
+}
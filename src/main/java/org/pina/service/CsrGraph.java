@@ -0,0 +1,124 @@
+package org.pina.service;
+
+import org.pina.model.Protein;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Immutable compressed sparse row view of a network: node v's neighbours live in
+// neighbors[offsets[v] .. offsets[v + 1]), sorted ascending, with matching weights.
+public final class CsrGraph {
+
+    private final Protein[] proteins;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final double[] weights;
+    private volatile Map<Protein, Integer> proteinIndex;
+
+    CsrGraph(Protein[] proteins, int[] offsets, int[] neighbors, double[] weights) {
+        this.proteins = proteins;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+    }
+
+    static CsrGraph fromEdges(Protein[] proteins, int[] source, int[] target, double[] score, int edges) {
+        int n = proteins.length;
+
+        // First pass: unsorted rows straight from the edge list
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            offsets[source[e] + 1]++;
+            offsets[target[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] unsorted = new int[offsets[n]];
+        double[] unsortedWeights = new double[offsets[n]];
+        int[] cursor = new int[n];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        for (int e = 0; e < edges; e++) {
+            int u = source[e];
+            int v = target[e];
+            unsorted[cursor[u]] = v;
+            unsortedWeights[cursor[u]++] = score[e];
+            unsorted[cursor[v]] = u;
+            unsortedWeights[cursor[v]++] = score[e];
+        }
+
+        // Second pass: transposing a symmetric graph in row order yields sorted rows
+        int[] sorted = new int[offsets[n]];
+        double[] sortedWeights = new double[offsets[n]];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        for (int u = 0; u < n; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = unsorted[i];
+                sorted[cursor[v]] = u;
+                sortedWeights[cursor[v]++] = unsortedWeights[i];
+            }
+        }
+        return new CsrGraph(proteins, offsets, sorted, sortedWeights);
+    }
+
+    public int nodeCount() {
+        return proteins.length;
+    }
+
+    public int edgeCount() {
+        return neighbors.length / 2;
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public double weightedDegree(int v) {
+        double sum = 0;
+        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+            sum += weights[i];
+        }
+        return sum;
+    }
+
+    public int neighbor(int v, int i) {
+        return neighbors[offsets[v] + i];
+    }
+
+    public double weight(int v, int i) {
+        return weights[offsets[v] + i];
+    }
+
+    public Protein proteinAt(int v) {
+        return proteins[v];
+    }
+
+    public int indexOf(Protein protein) {
+        Map<Protein, Integer> index = proteinIndex;
+        if (index == null) {
+            index = new HashMap<>(proteins.length * 2);
+            for (int i = 0; i < proteins.length; i++) {
+                index.putIfAbsent(proteins[i], i);
+            }
+            proteinIndex = index;
+        }
+        return index.getOrDefault(protein, -1);
+    }
+
+    // Raw arrays for the analytics in this package; callers must not modify them
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] neighbors() {
+        return neighbors;
+    }
+
+    double[] weights() {
+        return weights;
+    }
+
+    Protein[] proteins() {
+        return proteins;
+    }
+}
@@ -0,0 +1,90 @@
+package org.pina.service;
+
+import java.util.Arrays;
+
+// Nodes kept sorted by degree, highest first, in bucket layout: the nodes of degree d occupy
+// order[end[d + 1] .. end[d]), where end[d] counts the nodes with degree >= d.
+// Adding a node and moving a degree by one are O(1) swaps at a bucket boundary.
+final class DegreeIndex {
+
+    private int[] order;
+    private int[] position;
+    private int[] degree;
+    private int[] end;
+    private int size;
+
+    DegreeIndex(int capacity) {
+        order = new int[Math.max(16, capacity)];
+        position = new int[order.length];
+        degree = new int[order.length];
+        end = new int[16];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int degree(int node) {
+        return degree[node];
+    }
+
+    // Node at rank r, where rank 0 has the highest degree
+    int nodeAt(int rank) {
+        return order[rank];
+    }
+
+    void add(int node) {
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        if (node >= position.length) {
+            int capacity = Math.max(node + 1, position.length * 2);
+            position = Arrays.copyOf(position, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+        }
+        degree[node] = 0;
+        position[node] = size;
+        order[size++] = node;
+        end[0]++;
+    }
+
+    void remove(int node) {
+        while (degree[node] > 0) {
+            decrement(node);
+        }
+        swap(position[node], end[0] - 1);
+        end[0]--;
+        size--;
+    }
+
+    void increment(int node) {
+        int d = degree[node];
+        if (d + 2 >= end.length) {
+            end = Arrays.copyOf(end, end.length * 2);
+        }
+        swap(position[node], end[d + 1]);
+        end[d + 1]++;
+        degree[node] = d + 1;
+    }
+
+    void decrement(int node) {
+        int d = degree[node];
+        swap(position[node], end[d] - 1);
+        end[d]--;
+        degree[node] = d - 1;
+    }
+
+    // Number of nodes with degree >= d
+    int countAtLeast(int d) {
+        return d < end.length ? end[d] : 0;
+    }
+
+    private void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        position[b] = i;
+        position[a] = j;
+    }
+}
@@ -0,0 +1,220 @@
+package org.pina.service;
+
+import java.util.Arrays;
+
+// Connected components kept up to date under edits. Every node carries its component label and every
+// label its member list, so lookups are O(1). A new edge between two components relabels the smaller
+// one into the larger (O(log V) relabels per node over any run of insertions).
+//
+// Removing a node or an edge may split its component, so the component is only marked dirty; refresh()
+// later re-splits each dirty component by BFS over its own members, leaving the rest of the graph untouched.
+// Member lists of dirty components may still hold removed nodes until then.
+final class DynamicComponents {
+
+    interface Graph {
+        boolean isLive(int node);
+
+        int degree(int node);
+
+        int neighbor(int node, int index);
+    }
+
+    private int[] labelOf;
+    private int[][] members;
+    private int[] memberCount;
+    private int[] liveCount;
+    private boolean[] dirty;
+    private int[] freeLabels;
+    private int freeCount;
+    private int labelBound;
+    private int[] dirtyLabels = new int[8];
+    private int dirtyCount;
+    private int componentCount;
+
+    private int[] visited;
+    private int visitEpoch;
+
+    DynamicComponents(int capacity) {
+        labelOf = new int[Math.max(16, capacity)];
+        members = new int[labelOf.length][];
+        memberCount = new int[labelOf.length];
+        liveCount = new int[labelOf.length];
+        dirty = new boolean[labelOf.length];
+        freeLabels = new int[labelOf.length];
+        visited = new int[labelOf.length];
+    }
+
+    // Starts from a full component computation over nodes 0 .. n, e.g. after renumbering every node
+    static DynamicComponents of(ConnectedComponents computed, int capacity) {
+        int[][] groups = computed.groups();
+        DynamicComponents c = new DynamicComponents(capacity);
+        for (int label = 0; label < groups.length; label++) {
+            c.members[label] = groups[label];
+            c.memberCount[label] = groups[label].length;
+            c.liveCount[label] = groups[label].length;
+            for (int node : groups[label]) {
+                c.labelOf[node] = label;
+            }
+        }
+        c.labelBound = groups.length;
+        c.componentCount = groups.length;
+        return c;
+    }
+
+    int componentCount() {
+        return componentCount;
+    }
+
+    // Valid after refresh()
+    int labelOf(int node) {
+        return labelOf[node];
+    }
+
+    int labelBound() {
+        return labelBound;
+    }
+
+    int sizeOf(int node) {
+        return liveCount[labelOf[node]];
+    }
+
+    void addNode(int node) {
+        if (node >= labelOf.length) {
+            int capacity = Math.max(node + 1, labelOf.length * 2);
+            labelOf = Arrays.copyOf(labelOf, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        int label = newLabel();
+        members[label] = new int[]{node};
+        memberCount[label] = 1;
+        liveCount[label] = 1;
+        labelOf[node] = label;
+        componentCount++;
+    }
+
+    void union(int u, int v) {
+        int a = labelOf[u];
+        int b = labelOf[v];
+        if (a == b) return;
+        if (memberCount[a] < memberCount[b]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        // Move the smaller member list into the larger one
+        int[] moved = members[b];
+        int count = memberCount[b];
+        if (memberCount[a] + count > members[a].length) {
+            members[a] = Arrays.copyOf(members[a], Math.max(memberCount[a] + count, members[a].length * 2));
+        }
+        for (int i = 0; i < count; i++) {
+            labelOf[moved[i]] = a;
+        }
+        System.arraycopy(moved, 0, members[a], memberCount[a], count);
+        memberCount[a] += count;
+        liveCount[a] += liveCount[b];
+        if (dirty[b]) {
+            markDirty(a);
+        }
+        freeLabel(b);
+        componentCount--;
+    }
+
+    void removeNode(int node) {
+        int label = labelOf[node];
+        if (--liveCount[label] == 0) {
+            freeLabel(label);
+            componentCount--;
+        } else {
+            markDirty(label);
+        }
+    }
+
+    // Called with either endpoint of a removed edge
+    void removeEdge(int node) {
+        markDirty(labelOf[node]);
+    }
+
+    void refresh(Graph graph) {
+        for (int d = 0; d < dirtyCount; d++) {
+            int label = dirtyLabels[d];
+            if (dirty[label]) {
+                dirty[label] = false;
+                split(graph, label);
+            }
+        }
+        dirtyCount = 0;
+    }
+
+    // BFS from each live member; the first tree keeps the label, every further tree is a new component.
+    // Components are closed under adjacency, so the search never leaves the old member set.
+    private void split(Graph graph, int label) {
+        int[] old = members[label];
+        int count = memberCount[label];
+        if (++visitEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitEpoch = 1;
+        }
+        int epoch = visitEpoch;
+        int[] queue = new int[liveCount[label]];
+        boolean first = true;
+        for (int i = 0; i < count; i++) {
+            int start = old[i];
+            if (!graph.isLive(start) || visited[start] == epoch) continue;
+            int tail = 0;
+            queue[tail++] = start;
+            visited[start] = epoch;
+            for (int head = 0; head < tail; head++) {
+                int v = queue[head];
+                for (int e = graph.degree(v) - 1; e >= 0; e--) {
+                    int u = graph.neighbor(v, e);
+                    if (visited[u] != epoch) {
+                        visited[u] = epoch;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            int target = first ? label : newLabel();
+            if (!first) componentCount++;
+            first = false;
+            members[target] = Arrays.copyOf(queue, tail);
+            memberCount[target] = tail;
+            liveCount[target] = tail;
+            for (int q = 0; q < tail; q++) {
+                labelOf[queue[q]] = target;
+            }
+        }
+    }
+
+    private void markDirty(int label) {
+        if (dirty[label]) return;
+        dirty[label] = true;
+        if (dirtyCount == dirtyLabels.length) {
+            dirtyLabels = Arrays.copyOf(dirtyLabels, dirtyCount * 2);
+        }
+        dirtyLabels[dirtyCount++] = label;
+    }
+
+    private int newLabel() {
+        if (freeCount > 0) {
+            return freeLabels[--freeCount];
+        }
+        if (labelBound == members.length) {
+            int capacity = labelBound * 2;
+            members = Arrays.copyOf(members, capacity);
+            memberCount = Arrays.copyOf(memberCount, capacity);
+            liveCount = Arrays.copyOf(liveCount, capacity);
+            dirty = Arrays.copyOf(dirty, capacity);
+            freeLabels = Arrays.copyOf(freeLabels, capacity);
+        }
+        return labelBound++;
+    }
+
+    private void freeLabel(int label) {
+        members[label] = null;
+        memberCount[label] = 0;
+        liveCount[label] = 0;
+        dirty[label] = false;
+        freeLabels[freeCount++] = label;
+    }
+}
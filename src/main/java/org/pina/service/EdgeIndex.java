@@ -0,0 +1,125 @@
+package org.pina.service;
+
+import java.util.Arrays;
+
+// Open-addressing hash map from an undirected node pair to an int value (the edge slot).
+// The pair is canonicalised to (min, max) and packed into one long, so lookups never allocate.
+final class EdgeIndex {
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    EdgeIndex() {
+        this(16);
+    }
+
+    EdgeIndex(int expectedEdges) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedEdges / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    static long key(int u, int v) {
+        return u < v
+                ? ((long) u << 32) | (v & 0xFFFFFFFFL)
+                : ((long) v << 32) | (u & 0xFFFFFFFFL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int u, int v) {
+        long key = key(u, v);
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == EMPTY) return -1;
+        }
+    }
+
+    // Returns the previous value, or -1 if the pair was not present
+    int put(int u, int v, int value) {
+        long key = key(u, v);
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+        return -1;
+    }
+
+    // Returns the removed value, or -1 if the pair was not present
+    int remove(int u, int v) {
+        long key = key(u, v);
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) return -1;
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        size--;
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
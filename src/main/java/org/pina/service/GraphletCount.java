@@ -0,0 +1,269 @@
+package org.pina.service;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+// Counts of the connected graphlets on two to four nodes (G0..G8) and of their 15 node orbits, numbered
+// as by Przulj; the orbit counts of a node are its graphlet degree vector.
+//
+// Nothing is enumerated except 4-cliques, as in ORCA. For every node, the number of not necessarily
+// induced copies of each four-node pattern follows from degrees, per-edge triangle counts and
+// common-neighbour counts. Each such count is a fixed combination of induced orbit counts, and that
+// unitriangular system is solved per node by back substitution. 4-cliques are listed over the degree
+// orientation of TriangleCount. Every pass splits nodes across the fork-join pool.
+public final class GraphletCount {
+
+    public static final int GRAPHLETS = 9;
+    public static final int ORBITS = 15;
+
+    private static final int NODES_PER_TASK = 256;
+    private static final String[] GRAPHLET_NAMES = {
+            "edge", "2-path", "triangle", "3-path", "3-star", "4-cycle", "tailed triangle", "diamond", "4-clique"
+    };
+    // An orbit of each graphlet and how many of the graphlet's nodes lie on it
+    private static final int[] GRAPHLET_ORBIT = {0, 2, 3, 5, 7, 8, 11, 13, 14};
+    private static final int[] ORBIT_NODES = {2, 1, 3, 2, 1, 4, 1, 2, 4};
+
+    private final long[] orbits;
+    private final long[] graphlets;
+
+    private GraphletCount(long[] orbits, long[] graphlets) {
+        this.orbits = orbits;
+        this.graphlets = graphlets;
+    }
+
+    public static GraphletCount compute(CsrGraph graph) {
+        return compute(graph, ForkJoinPool.commonPool());
+    }
+
+    public static GraphletCount compute(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+
+        // Triangles per edge slot and node, the sum of (degree - 1) over neighbours, and 4-cycles per node
+        // (sum over nodes w of C(common neighbours with w, 2)), all from one walk over the 2-hop neighbourhood
+        int[] edgeTriangles = new int[neighbors.length];
+        long[] triangles = new long[n];
+        long[] pathEnds = new long[n];
+        long[] cycles = new long[n];
+        ThreadLocal<int[][]> workspace = ThreadLocal.withInitial(() -> new int[][]{new int[n], new int[n], new int[n]});
+        ParallelRange.forEach(pool, 0, n, NODES_PER_TASK, (from, to) -> {
+            int[][] arrays = workspace.get();
+            int[] neighbour = arrays[0];
+            int[] seen = arrays[1];
+            int[] common = arrays[2];
+            for (int v = from; v < to; v++) {
+                int stamp = v + 1;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    neighbour[neighbors[i]] = stamp;
+                }
+                long ends = 0;
+                long closed = 0;
+                long fourCycles = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = neighbors[i];
+                    int t = 0;
+                    ends += offsets[u + 1] - offsets[u] - 1;
+                    for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                        int w = neighbors[j];
+                        if (w == v) continue;
+                        if (neighbour[w] == stamp) t++;
+                        if (seen[w] != stamp) {
+                            seen[w] = stamp;
+                            common[w] = 0;
+                        }
+                        fourCycles += common[w]++;
+                    }
+                    edgeTriangles[i] = t;
+                    closed += t;
+                }
+                triangles[v] = closed / 2;
+                pathEnds[v] = ends;
+                cycles[v] = fourCycles;
+            }
+        });
+
+        long[] cliques = countCliques(graph, pool);
+
+        // Non-induced pattern counts n4..n14, where n_k counts the copies of orbit k's graphlet, or of its
+        // spanning subgraphs, that hold the node on orbit k's position
+        long[] orbits = new long[n * ORBITS];
+        ThreadLocal<int[]> marks = ThreadLocal.withInitial(() -> new int[n]);
+        ParallelRange.forEach(pool, 0, n, NODES_PER_TASK, (from, to) -> {
+            int[] neighbour = marks.get();
+            for (int v = from; v < to; v++) {
+                long d = offsets[v + 1] - offsets[v];
+                long tri = triangles[v];
+                long n4 = 0;
+                long n6 = 0;
+                long n9 = 0;
+                long n10 = 0;
+                long n12 = 0;
+                long n13 = 0;
+                int stamp = v + 1;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    neighbour[neighbors[i]] = stamp;
+                }
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = neighbors[i];
+                    long du = offsets[u + 1] - offsets[u];
+                    long t = edgeTriangles[i];
+                    n4 += pathEnds[u] - (d - 1);
+                    n6 += (du - 1) * (du - 2) / 2;
+                    n9 += triangles[u] - t;
+                    n10 += t * (du - 2);
+                    n13 += t * (t - 1) / 2;
+                    if (t == 0) continue;
+                    // Edges u-w between two neighbours of v, each seen from its lower end
+                    for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                        int w = neighbors[j];
+                        if (w > u && neighbour[w] == stamp) n12 += edgeTriangles[j] - 1;
+                    }
+                }
+                n4 -= 2 * tri;
+                long n5 = (d - 1) * pathEnds[v] - 2 * tri;
+                long n7 = d * (d - 1) * (d - 2) / 6;
+                long n8 = cycles[v];
+                long n11 = tri * (d - 2);
+                long n14 = cliques[v];
+
+                long o14 = n14;
+                long o13 = n13 - 3 * o14;
+                long o12 = n12 - 3 * o14;
+                long o11 = n11 - 2 * o13 - 3 * o14;
+                long o10 = n10 - 2 * o12 - 2 * o13 - 6 * o14;
+                long o9 = n9 - 2 * o12 - 3 * o14;
+                long o8 = n8 - o12 - o13 - 3 * o14;
+                long o7 = n7 - o11 - o13 - o14;
+                long o6 = n6 - o9 - o10 - 2 * o12 - o13 - 3 * o14;
+                long o5 = n5 - 2 * o8 - o10 - 2 * o11 - 2 * o12 - 4 * o13 - 6 * o14;
+                long o4 = n4 - 2 * o8 - 2 * o9 - o10 - 4 * o12 - 2 * o13 - 6 * o14;
+
+                int base = v * ORBITS;
+                orbits[base] = d;
+                orbits[base + 1] = pathEnds[v] - 2 * tri;
+                orbits[base + 2] = d * (d - 1) / 2 - tri;
+                orbits[base + 3] = tri;
+                orbits[base + 4] = o4;
+                orbits[base + 5] = o5;
+                orbits[base + 6] = o6;
+                orbits[base + 7] = o7;
+                orbits[base + 8] = o8;
+                orbits[base + 9] = o9;
+                orbits[base + 10] = o10;
+                orbits[base + 11] = o11;
+                orbits[base + 12] = o12;
+                orbits[base + 13] = o13;
+                orbits[base + 14] = o14;
+            }
+        });
+
+        long[] graphlets = new long[GRAPHLETS];
+        for (int g = 0; g < GRAPHLETS; g++) {
+            long sum = 0;
+            for (int v = 0; v < n; v++) {
+                sum += orbits[v * ORBITS + GRAPHLET_ORBIT[g]];
+            }
+            graphlets[g] = sum / ORBIT_NODES[g];
+        }
+        return new GraphletCount(orbits, graphlets);
+    }
+
+    // 4-cliques per node. Each clique is found once, from its first node v in orientation order: the
+    // second node u is an out-neighbour of v, and the last two are an out-edge w -> x between common
+    // out-neighbours of v and u.
+    private static long[] countCliques(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        int[][] oriented = TriangleCount.orient(graph, pool);
+        int[] outOffsets = oriented[0];
+        int[] out = oriented[1];
+
+        Queue<long[]> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<long[]> local = ThreadLocal.withInitial(() -> {
+            long[] counts = new long[n];
+            partials.add(counts);
+            return counts;
+        });
+        ParallelRange.forEach(pool, 0, n, NODES_PER_TASK, (from, to) -> {
+            long[] counts = local.get();
+            int[] shared = new int[16];
+            for (int v = from; v < to; v++) {
+                if (shared.length < outOffsets[v + 1] - outOffsets[v]) {
+                    shared = new int[outOffsets[v + 1] - outOffsets[v]];
+                }
+                for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                    int u = out[i];
+                    int size = intersect(out, outOffsets[v], outOffsets[v + 1], out, outOffsets[u], outOffsets[u + 1], shared);
+                    for (int p = 0; p < size; p++) {
+                        int w = shared[p];
+                        int a = 0;
+                        int b = outOffsets[w];
+                        int bEnd = outOffsets[w + 1];
+                        while (a < size && b < bEnd) {
+                            int x = shared[a];
+                            int y = out[b];
+                            if (x < y) {
+                                a++;
+                            } else if (x > y) {
+                                b++;
+                            } else {
+                                counts[v]++;
+                                counts[u]++;
+                                counts[w]++;
+                                counts[x]++;
+                                a++;
+                                b++;
+                            }
+                        }
+                    }
+                }
+            }
+        });
+
+        long[] cliques = new long[n];
+        for (long[] counts : partials) {
+            for (int v = 0; v < n; v++) {
+                cliques[v] += counts[v];
+            }
+        }
+        return cliques;
+    }
+
+    // Writes the common entries of two sorted ranges to target and returns how many there are
+    private static int intersect(int[] a, int a0, int a1, int[] b, int b0, int b1, int[] target) {
+        int size = 0;
+        while (a0 < a1 && b0 < b1) {
+            if (a[a0] < b[b0]) {
+                a0++;
+            } else if (a[a0] > b[b0]) {
+                b0++;
+            } else {
+                target[size++] = a[a0];
+                a0++;
+                b0++;
+            }
+        }
+        return size;
+    }
+
+    public static String graphletName(int graphlet) {
+        return GRAPHLET_NAMES[graphlet];
+    }
+
+    // Number of induced copies of graphlet G0..G8 in the network
+    public long graphletCount(int graphlet) {
+        return graphlets[graphlet];
+    }
+
+    // Number of induced graphlets touching node v on the given orbit
+    public long orbit(int v, int orbit) {
+        return orbits[v * ORBITS + orbit];
+    }
+
+    public long[] graphletDegreeVector(int v) {
+        return Arrays.copyOfRange(orbits, v * ORBITS, (v + 1) * ORBITS);
+    }
+}
@@ -0,0 +1,86 @@
+package org.pina.service;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+// Asynchronous label propagation: every node repeatedly adopts the label carrying the most confidence
+// weight among its neighbours, until the share of nodes changing label in a sweep drops below a threshold.
+//
+// Sweeps run across the fork-join pool and read neighbours' labels as they are being updated, so with
+// more than one thread the outcome can vary slightly between runs; use Louvain when it must not.
+public final class LabelPropagation {
+
+    private static final int LEAF_SIZE = 256;
+
+    private final double changeThreshold;
+    private final int maxIterations;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    public LabelPropagation(double changeThreshold, int maxIterations, long seed) {
+        this(changeThreshold, maxIterations, seed, ForkJoinPool.commonPool());
+    }
+
+    public LabelPropagation(double changeThreshold, int maxIterations, long seed, ForkJoinPool pool) {
+        if (changeThreshold < 0 || changeThreshold >= 1) {
+            throw new IllegalArgumentException("Change threshold must be in [0, 1): " + changeThreshold);
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("At least one iteration is required: " + maxIterations);
+        }
+        this.changeThreshold = changeThreshold;
+        this.maxIterations = maxIterations;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    // Returns a community index per node; communities are numbered by decreasing size
+    public int[] detect(CsrGraph graph) {
+        int n = graph.nodeCount();
+        int[] labels = Partitions.identity(n);
+        if (n == 0) return labels;
+
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        double[] weights = graph.weights();
+        Random random = new Random(seed);
+        ThreadLocal<WeightAccumulator> scratch = ThreadLocal.withInitial(() -> new WeightAccumulator(n));
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            int[] order = Partitions.shuffled(n, random);
+            LongAdder changed = new LongAdder();
+            ParallelRange.forEach(pool, 0, n, LEAF_SIZE, (from, to) -> {
+                WeightAccumulator acc = scratch.get();
+                int local = 0;
+                for (int i = from; i < to; i++) {
+                    int v = order[i];
+                    if (offsets[v] == offsets[v + 1]) continue;
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        acc.add(labels[neighbors[e]], weights[e]);
+                    }
+                    int current = labels[v];
+                    int best = current;
+                    double bestWeight = acc.seen[current] ? acc.weightTo[current] : -1;
+                    for (int t = 0; t < acc.size; t++) {
+                        int label = acc.touched[t];
+                        double w = acc.weightTo[label];
+                        // Ties keep the current label, otherwise go to the smallest one, to avoid flip-flopping
+                        if (w > bestWeight || (w == bestWeight && best != current && label < best)) {
+                            bestWeight = w;
+                            best = label;
+                        }
+                    }
+                    acc.reset();
+                    if (best != current) {
+                        labels[v] = best;
+                        local++;
+                    }
+                }
+                changed.add(local);
+            });
+            if (changed.sum() <= changeThreshold * n) break;
+        }
+        return Partitions.orderBySize(labels);
+    }
+}
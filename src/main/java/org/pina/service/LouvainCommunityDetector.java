@@ -0,0 +1,357 @@
+package org.pina.service;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Modularity-based community detection: Louvain local moving with Leiden's refinement step, so every
+// community is internally connected. Edges are weighted by confidence score.
+//
+// Moves are evaluated in parallel in fixed-size batches against the state at the start of the batch
+// and applied in a seeded order afterwards, so results depend on the seed only, not on thread timing.
+public final class LouvainCommunityDetector {
+
+    private static final int SEQUENTIAL_THRESHOLD = 2048;
+    private static final int MOVE_BATCH = 1024;
+    private static final int LEAF_SIZE = 64;
+    private static final int MAX_LEVELS = 32;
+    private static final int MAX_SWEEPS = 50;
+
+    private final double resolution;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    public LouvainCommunityDetector(double resolution, long seed) {
+        this(resolution, seed, ForkJoinPool.commonPool());
+    }
+
+    public LouvainCommunityDetector(double resolution, long seed, ForkJoinPool pool) {
+        if (!(resolution > 0)) {
+            throw new IllegalArgumentException("Resolution must be positive: " + resolution);
+        }
+        this.resolution = resolution;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    // Returns a community index per node; communities are numbered by decreasing size
+    public int[] detect(CsrGraph graph) {
+        int originalCount = graph.nodeCount();
+        int[] membership = Partitions.identity(originalCount);
+        Level level = Level.of(graph);
+        double twoM = 0;
+        for (double s : level.strength) {
+            twoM += s;
+        }
+        if (twoM <= 0) {
+            return membership;
+        }
+
+        Random random = new Random(seed);
+        int[] partition = Partitions.identity(level.n);
+        for (int depth = 0; depth < MAX_LEVELS; depth++) {
+            boolean moved = moveNodes(level, partition, twoM, random);
+            if (!moved && depth > 0) break;
+
+            int[] refined = refine(level, partition, twoM, random);
+            int refinedCount = Partitions.relabel(refined);
+            if (refinedCount == level.n) break;
+
+            int[] aggregatePartition = new int[refinedCount];
+            for (int v = 0; v < level.n; v++) {
+                aggregatePartition[refined[v]] = partition[v];
+            }
+            Partitions.relabel(aggregatePartition);
+            for (int v = 0; v < originalCount; v++) {
+                membership[v] = refined[membership[v]];
+            }
+            level = level.aggregate(refined, refinedCount, pool);
+            partition = aggregatePartition;
+        }
+
+        int[] result = new int[originalCount];
+        for (int v = 0; v < originalCount; v++) {
+            result[v] = partition[membership[v]];
+        }
+        return Partitions.orderBySize(result);
+    }
+
+    public static double modularity(CsrGraph graph, int[] membership, double resolution) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        double[] weights = graph.weights();
+        double[] tot = new double[n];
+        double twoM = 0;
+        double internal = 0;
+        for (int u = 0; u < n; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                twoM += weights[i];
+                tot[membership[u]] += weights[i];
+                if (membership[neighbors[i]] == membership[u]) {
+                    internal += weights[i];
+                }
+            }
+        }
+        if (twoM <= 0) return 0;
+        double expected = 0;
+        for (double t : tot) {
+            expected += t * t;
+        }
+        return (internal - resolution * expected / twoM) / twoM;
+    }
+
+    private boolean moveNodes(Level level, int[] partition, double twoM, Random random) {
+        int n = level.n;
+        double[] tot = new double[n];
+        for (int v = 0; v < n; v++) {
+            tot[partition[v]] += level.strength[v];
+        }
+        int[] order = Partitions.shuffled(n, random);
+        int batch = n <= SEQUENTIAL_THRESHOLD ? 1 : MOVE_BATCH;
+        int[] best = new int[batch];
+        ThreadLocal<WeightAccumulator> scratch = ThreadLocal.withInitial(() -> new WeightAccumulator(n));
+
+        boolean anyMoved = false;
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            int moves = 0;
+            for (int start = 0; start < n; start += batch) {
+                int end = Math.min(n, start + batch);
+                if (batch == 1) {
+                    best[0] = bestCommunity(level, order[start], partition, tot, twoM, scratch.get());
+                } else {
+                    int batchStart = start;
+                    ParallelRange.forEach(pool, start, end, LEAF_SIZE, (from, to) -> {
+                        WeightAccumulator s = scratch.get();
+                        for (int i = from; i < to; i++) {
+                            best[i - batchStart] = bestCommunity(level, order[i], partition, tot, twoM, s);
+                        }
+                    });
+                }
+                for (int i = start; i < end; i++) {
+                    int v = order[i];
+                    int target = best[i - start];
+                    if (target != partition[v]) {
+                        tot[partition[v]] -= level.strength[v];
+                        tot[target] += level.strength[v];
+                        partition[v] = target;
+                        moves++;
+                    }
+                }
+            }
+            if (moves == 0) break;
+            anyMoved = true;
+        }
+        return anyMoved;
+    }
+
+    private int bestCommunity(Level level, int v, int[] partition, double[] tot, double twoM, WeightAccumulator scratch) {
+        int own = partition[v];
+        double kv = level.strength[v];
+        for (int i = level.offsets[v]; i < level.offsets[v + 1]; i++) {
+            scratch.add(partition[level.adj[i]], level.weights[i]);
+        }
+
+        int best = own;
+        double bestGain = scratch.weightTo[own] - resolution * (tot[own] - kv) * kv / twoM;
+        for (int t = 0; t < scratch.size; t++) {
+            int c = scratch.touched[t];
+            if (c == own) continue;
+            double gain = scratch.weightTo[c] - resolution * tot[c] * kv / twoM;
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = c;
+            }
+        }
+        scratch.reset();
+        return best;
+    }
+
+    // Leiden refinement: inside each community, greedily merge well-connected singletons into
+    // well-connected sub-communities. Communities are independent, so they are refined in parallel.
+    private int[] refine(Level level, int[] partition, double twoM, Random random) {
+        int n = level.n;
+        int[] order = Partitions.shuffled(n, random);
+
+        int[] start = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            start[partition[v] + 1]++;
+        }
+        for (int c = 0; c < n; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] members = new int[n];
+        int[] cursor = Arrays.copyOf(start, n);
+        for (int v : order) {
+            members[cursor[partition[v]]++] = v;
+        }
+
+        Refinement refinement = new Refinement(level, partition, twoM, start, members, n);
+        ParallelRange.forEach(pool, 0, n, LEAF_SIZE, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                refinement.refineCommunity(c);
+            }
+        });
+        return refinement.refined;
+    }
+
+    private final class Refinement {
+        final Level level;
+        final int[] partition;
+        final double twoM;
+        final int[] start;
+        final int[] members;
+        final int[] refined;
+        final double[] refinedTot;
+        final double[] refinedExternal;
+        final double[] internalWeight;
+        final boolean[] joined;
+        final ThreadLocal<WeightAccumulator> scratch;
+
+        Refinement(Level level, int[] partition, double twoM, int[] start, int[] members, int n) {
+            this.level = level;
+            this.partition = partition;
+            this.twoM = twoM;
+            this.start = start;
+            this.members = members;
+            this.refined = Partitions.identity(n);
+            this.refinedTot = level.strength.clone();
+            this.refinedExternal = new double[n];
+            this.internalWeight = new double[n];
+            this.joined = new boolean[n];
+            this.scratch = ThreadLocal.withInitial(() -> new WeightAccumulator(n));
+        }
+
+        void refineCommunity(int community) {
+            int from = start[community];
+            int to = start[community + 1];
+            if (to - from < 2) return;
+
+            double communityTot = 0;
+            for (int m = from; m < to; m++) {
+                int v = members[m];
+                communityTot += level.strength[v];
+                double inside = 0;
+                for (int i = level.offsets[v]; i < level.offsets[v + 1]; i++) {
+                    if (partition[level.adj[i]] == community) inside += level.weights[i];
+                }
+                internalWeight[v] = inside;
+                refinedExternal[v] = inside;
+            }
+
+            WeightAccumulator s = scratch.get();
+            for (int m = from; m < to; m++) {
+                int v = members[m];
+                if (joined[v]) continue;
+                double kv = level.strength[v];
+                if (internalWeight[v] < resolution * kv * (communityTot - kv) / twoM) continue;
+
+                for (int i = level.offsets[v]; i < level.offsets[v + 1]; i++) {
+                    int j = level.adj[i];
+                    if (partition[j] == community) s.add(refined[j], level.weights[i]);
+                }
+                int best = -1;
+                double bestGain = 0;
+                for (int t = 0; t < s.size; t++) {
+                    int target = s.touched[t];
+                    if (target == refined[v]) continue;
+                    double tot = refinedTot[target];
+                    if (refinedExternal[target] < resolution * tot * (communityTot - tot) / twoM) continue;
+                    double gain = s.weightTo[target] - resolution * kv * tot / twoM;
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        best = target;
+                    }
+                }
+                if (best >= 0) {
+                    refinedExternal[best] += internalWeight[v] - 2 * s.weightTo[best];
+                    refinedTot[best] += kv;
+                    refined[v] = best;
+                    joined[best] = true;
+                    joined[v] = true;
+                }
+                s.reset();
+            }
+        }
+    }
+
+    // One level of the hierarchy: a weighted graph whose nodes may carry internal (self-loop) weight
+    private static final class Level {
+        final int n;
+        final int[] offsets;
+        final int[] adj;
+        final double[] weights;
+        final double[] strength;
+
+        Level(int n, int[] offsets, int[] adj, double[] weights, double[] strength) {
+            this.n = n;
+            this.offsets = offsets;
+            this.adj = adj;
+            this.weights = weights;
+            this.strength = strength;
+        }
+
+        static Level of(CsrGraph graph) {
+            int n = graph.nodeCount();
+            double[] strength = new double[n];
+            for (int v = 0; v < n; v++) {
+                strength[v] = graph.weightedDegree(v);
+            }
+            return new Level(n, graph.offsets(), graph.neighbors(), graph.weights(), strength);
+        }
+
+        // Collapses every group of nodes into a single node; intra-group edges become internal weight
+        Level aggregate(int[] group, int groupCount, ForkJoinPool pool) {
+            int[] start = new int[groupCount + 1];
+            for (int v = 0; v < n; v++) {
+                start[group[v] + 1]++;
+            }
+            for (int g = 0; g < groupCount; g++) {
+                start[g + 1] += start[g];
+            }
+            int[] members = new int[n];
+            int[] cursor = Arrays.copyOf(start, groupCount);
+            for (int v = 0; v < n; v++) {
+                members[cursor[group[v]]++] = v;
+            }
+
+            int[][] rowAdj = new int[groupCount][];
+            double[][] rowWeights = new double[groupCount][];
+            double[] strength = new double[groupCount];
+            ThreadLocal<WeightAccumulator> scratch = ThreadLocal.withInitial(() -> new WeightAccumulator(groupCount));
+            ParallelRange.forEach(pool, 0, groupCount, LEAF_SIZE, (from, to) -> {
+                WeightAccumulator s = scratch.get();
+                for (int g = from; g < to; g++) {
+                    double total = 0;
+                    for (int m = start[g]; m < start[g + 1]; m++) {
+                        int v = members[m];
+                        total += this.strength[v];
+                        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                            int target = group[adj[i]];
+                            if (target != g) s.add(target, weights[i]);
+                        }
+                    }
+                    strength[g] = total;
+                    rowAdj[g] = Arrays.copyOf(s.touched, s.size);
+                    rowWeights[g] = new double[s.size];
+                    for (int t = 0; t < s.size; t++) {
+                        rowWeights[g][t] = s.weightTo[s.touched[t]];
+                    }
+                    s.reset();
+                }
+            });
+
+            int[] newOffsets = new int[groupCount + 1];
+            for (int g = 0; g < groupCount; g++) {
+                newOffsets[g + 1] = newOffsets[g] + rowAdj[g].length;
+            }
+            int[] newAdj = new int[newOffsets[groupCount]];
+            double[] newWeights = new double[newOffsets[groupCount]];
+            for (int g = 0; g < groupCount; g++) {
+                System.arraycopy(rowAdj[g], 0, newAdj, newOffsets[g], rowAdj[g].length);
+                System.arraycopy(rowWeights[g], 0, newWeights, newOffsets[g], rowWeights[g].length);
+            }
+            return new Level(groupCount, newOffsets, newAdj, newWeights, strength);
+        }
+    }
+}
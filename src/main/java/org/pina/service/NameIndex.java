@@ -0,0 +1,47 @@
+package org.pina.service;
+
+import org.pina.model.Protein;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+// Proteins by name, earliest added first. Names are nearly always unique, so only the first holder of a
+// name sits in the main map; later holders wait in a per-name overflow queue and the next one takes over
+// when the current holder is removed.
+final class NameIndex {
+
+    private final Map<String, Protein> first = new HashMap<>();
+    private final Map<String, ArrayDeque<Protein>> others = new HashMap<>();
+
+    void add(String name, Protein protein) {
+        Protein holder = first.putIfAbsent(name, protein);
+        if (holder != null) {
+            others.computeIfAbsent(name, n -> new ArrayDeque<>(2)).addLast(protein);
+        }
+    }
+
+    void remove(String name, Protein protein) {
+        ArrayDeque<Protein> waiting = others.get(name);
+        if (protein.equals(first.get(name))) {
+            if (waiting == null) {
+                first.remove(name);
+                return;
+            }
+            first.put(name, waiting.pollFirst());
+        } else if (waiting == null || !waiting.remove(protein)) {
+            return;
+        }
+        if (waiting.isEmpty()) {
+            others.remove(name);
+        }
+    }
+
+    Protein get(String name) {
+        return first.get(name);
+    }
+
+    boolean contains(String name) {
+        return first.containsKey(name);
+    }
+}
@@ -24,6 +24,12 @@ import java.nio.file.*;
 
 public class NetworkService {
 
+    private static final long COMMUNITY_SEED = 42L;
+    private static final int HUB_LIMIT = 20;
+    private static final int EXACT_BETWEENNESS_LIMIT = 5000;
+    private static final double PAGERANK_DAMPING = 0.85;
+    private static final int DIFF_PRINT_LIMIT = 50;
+
     private PPINetwork currentNetwork;
     private final Random random = new Random();
     private final Set<String> availableProteins = new HashSet<>();
@@ -37,12 +43,16 @@ public class NetworkService {
 
     PPINetworkDAO ppnDAO;
 
+    NetworkComparisonDAO comparisonDAO;
+
     public NetworkService() throws SQLException {
-        this.conn = DatabaseConnection.getInstance().getConnection();
+        ConnectionPool pool = DatabaseConnection.getInstance().getPool();
+        this.conn = pool.writer();
         this.proteinDAO = new ProteinDAO(conn);
         this.interactionDAO = new InteractionDAO(conn);
         this.communityDAO = new CommunityDAO(conn);
-        this.ppnDAO = new PPINetworkDAO(conn);
+        this.ppnDAO = new PPINetworkDAO(pool);
+        this.comparisonDAO = new NetworkComparisonDAO(pool);
 
         // Load protein names from DB and add to availableProteins
         List<String> proteinNamesFromDb = proteinDAO.getAllProteinNames();
@@ -83,8 +93,85 @@ public class NetworkService {
         }
         AuditService.INSTANCE.log("listed_networks|"+networkNames.size());
     }
+
+    public void compareNetworks() throws SQLException {
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("» Enter first network name: ");
+        String first = scanner.nextLine().trim();
+        System.out.println("» Enter second network name: ");
+        String second = scanner.nextLine().trim();
+        int[] printed = {0};
+        NetworkDiff diff;
+        try {
+            diff = comparisonDAO.diff(first, second, new NetworkDiff.Listener() {
+                @Override
+                public void proteinAdded(String proteinId) {
+                    print("+ protein " + proteinId);
+                }
+
+                @Override
+                public void proteinRemoved(String proteinId) {
+                    print("- protein " + proteinId);
+                }
+
+                @Override
+                public void interactionAdded(String protein1Id, String protein2Id, double score) {
+                    print("+ interaction " + protein1Id + " - " + protein2Id + " (" + score + ")");
+                }
+
+                @Override
+                public void interactionRemoved(String protein1Id, String protein2Id, double score) {
+                    print("- interaction " + protein1Id + " - " + protein2Id + " (" + score + ")");
+                }
+
+                @Override
+                public void scoreChanged(String protein1Id, String protein2Id, double oldScore, double newScore) {
+                    print("~ interaction " + protein1Id + " - " + protein2Id + " (" + oldScore + " -> " + newScore + ")");
+                }
+
+                private void print(String line) {
+                    if (printed[0]++ < DIFF_PRINT_LIMIT) System.out.println(line);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (printed[0] > DIFF_PRINT_LIMIT) {
+            System.out.println("... " + (printed[0] - DIFF_PRINT_LIMIT) + " more differences");
+        }
+        System.out.println(diff.isEmpty() ? "The networks are identical" : diff.toString());
+        AuditService.INSTANCE.log("compared_networks|" + first + ";" + second);
+    }
+
+    public void mergeNetworks() throws SQLException {
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("» Enter first network name: ");
+        String first = scanner.nextLine().trim();
+        System.out.println("» Enter second network name: ");
+        String second = scanner.nextLine().trim();
+        System.out.println("» Enter name of the merged network: ");
+        String target = scanner.nextLine().trim();
+        System.out.println("» Score for shared interactions: 1. First  2. Second  3. Maximum  4. Minimum  5. Mean");
+        NetworkComparisonDAO.ScorePolicy policy = switch (scanner.nextLine().trim()) {
+            case "2" -> NetworkComparisonDAO.ScorePolicy.SECOND;
+            case "3" -> NetworkComparisonDAO.ScorePolicy.MAX;
+            case "4" -> NetworkComparisonDAO.ScorePolicy.MIN;
+            case "5" -> NetworkComparisonDAO.ScorePolicy.MEAN;
+            default -> NetworkComparisonDAO.ScorePolicy.FIRST;
+        };
+        try {
+            int interactions = comparisonDAO.merge(first, second, target, policy);
+            System.out.println("Saved merged network " + target + " with " + interactions + " interactions");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        AuditService.INSTANCE.log("merged_networks|" + first + ";" + second + ";" + target + ";" + policy);
+    }
+
     public void getHubProteins() {
-        List<Map.Entry<Protein,Integer>> hubProteins = currentNetwork.findHubProteins();
+        List<Map.Entry<Protein,Integer>> hubProteins = currentNetwork.topHubs(HUB_LIMIT);
         for (Map.Entry<Protein,Integer> entry : hubProteins) {
             Protein protein = entry.getKey();
             int score = entry.getValue();
@@ -93,6 +180,108 @@ public class NetworkService {
         AuditService.INSTANCE.log("protein_hubs_retrieved|" + currentNetwork.getNetworkName());
     }
 
+    public void getBottleneckProteins() {
+        List<Map.Entry<Protein, Double>> bottlenecks = currentNetwork.getProteinCount() <= EXACT_BETWEENNESS_LIMIT
+                ? currentNetwork.findBottleneckProteins()
+                : currentNetwork.findBottleneckProteins(0.05, 0.1, COMMUNITY_SEED);
+        for (Map.Entry<Protein, Double> entry : bottlenecks.subList(0, Math.min(HUB_LIMIT, bottlenecks.size()))) {
+            System.out.println(entry.getKey().getName() + ": betweenness " + String.format("%.2f", entry.getValue()));
+        }
+        AuditService.INSTANCE.log("bottleneck_proteins_retrieved|" + currentNetwork.getNetworkName());
+    }
+
+    public void getInfluentialProteins() {
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("» Ranking: 1. PageRank  2. PageRank around seed proteins  3. Eigenvector centrality");
+        String choice = scanner.nextLine().trim();
+        List<Map.Entry<Protein, Double>> ranking;
+        if (choice.equals("2")) {
+            System.out.println("» Enter seed protein names (comma separated): ");
+            List<Protein> seeds = new ArrayList<>();
+            for (String name : scanner.nextLine().split(",")) {
+                Protein seed = currentNetwork.findProtein(name.trim());
+                if (seed == null) {
+                    System.out.println("Protein " + name.trim() + " is not in the network, skipping");
+                } else {
+                    seeds.add(seed);
+                }
+            }
+            if (seeds.isEmpty()) {
+                System.out.println("No seed proteins given");
+                return;
+            }
+            ranking = currentNetwork.findPersonalizedPageRank(seeds, PAGERANK_DAMPING);
+        } else if (choice.equals("3")) {
+            ranking = currentNetwork.findEigenvectorCentrality();
+        } else {
+            ranking = currentNetwork.findPageRank(PAGERANK_DAMPING);
+        }
+        for (Map.Entry<Protein, Double> entry : ranking.subList(0, Math.min(HUB_LIMIT, ranking.size()))) {
+            System.out.println(entry.getKey().getName() + ": score " + String.format("%.5f", entry.getValue()));
+        }
+        AuditService.INSTANCE.log("influential_proteins_retrieved|" + currentNetwork.getNetworkName());
+    }
+
+    public void findPathBetweenProteins() {
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("» Enter first protein name or UniProt id: ");
+        String from = scanner.nextLine().trim();
+        System.out.println("» Enter second protein name or UniProt id: ");
+        String to = scanner.nextLine().trim();
+        try {
+            List<Protein> shortest = currentNetwork.findShortestPath(from, to);
+            if (shortest.isEmpty()) {
+                System.out.println("The proteins are not connected");
+                return;
+            }
+            System.out.println("Shortest path (" + (shortest.size() - 1) + " interactions):");
+            printPath(shortest);
+            List<Protein> confident = currentNetwork.findMostConfidentPath(from, to);
+            System.out.println("Most confident path (" + (confident.size() - 1) + " interactions):");
+            printPath(confident);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        AuditService.INSTANCE.log("path_retrieved|" + from + ";" + to);
+    }
+
+    // Graphlet counts of the whole network next to its human-only and viral-only parts, and optionally
+    // the graphlet degree vector of one protein
+    public void getGraphletStatistics() {
+        GraphletCount whole = currentNetwork.findGraphlets();
+        GraphletCount human = GraphletCount.compute(currentNetwork.typeView(HumanProtein.class).toCsrGraph());
+        GraphletCount viral = GraphletCount.compute(currentNetwork.typeView(ViralProtein.class).toCsrGraph());
+        System.out.println(String.format("%-16s %12s %12s %12s", "Graphlet", "Network", "Human", "Viral"));
+        for (int g = 0; g < GraphletCount.GRAPHLETS; g++) {
+            System.out.println(String.format("%-16s %12d %12d %12d", GraphletCount.graphletName(g),
+                    whole.graphletCount(g), human.graphletCount(g), viral.graphletCount(g)));
+        }
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("» Enter a protein name to show its graphlet degree vector (empty to skip): ");
+        String name = scanner.nextLine().trim();
+        if (!name.isEmpty()) {
+            Protein protein = currentNetwork.findProtein(name);
+            if (protein == null) {
+                System.out.println("Protein " + name + " is not in the network");
+            } else {
+                int v = currentNetwork.getCsrGraph().indexOf(protein);
+                System.out.println(protein.getName() + ": " + Arrays.toString(whole.graphletDegreeVector(v)));
+            }
+        }
+        AuditService.INSTANCE.log("graphlets_retrieved|" + currentNetwork.getNetworkName());
+    }
+
+    private void printPath(List<Protein> path) {
+        double confidence = 1;
+        StringBuilder line = new StringBuilder(path.get(0).getName());
+        for (int i = 1; i < path.size(); i++) {
+            confidence *= currentNetwork.findInteraction(path.get(i - 1), path.get(i)).getConfidenceScore();
+            line.append(" -> ").append(path.get(i).getName());
+        }
+        System.out.println(line + " (confidence " + String.format("%.4f", confidence) + ")");
+    }
+
     public void addProtein() throws SQLException {
         Scanner scanner = new Scanner(System.in);
         System.out.println("» Enter protein name: ");
@@ -166,7 +355,22 @@ public class NetworkService {
     }
 
     public void getCommunities() {
-        List<Community> communities =  currentNetwork.findCommunities();
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("- 1. Connected components\n- 2. Modularity (Louvain/Leiden)\n- 3. Quick clustering (label propagation)\nChoose detection method: ");
+        String method = scanner.nextLine().trim();
+        System.out.println("Do you want to name new communities manually? [Y/N]: ");
+        CommunityNamer namer = scanner.nextLine().equalsIgnoreCase("Y")
+                ? CommunityNamer.interactive(scanner, CommunityNamer.byHub())
+                : CommunityNamer.byHub();
+
+        List<Community> communities;
+        if (method.equals("2")) {
+            communities = currentNetwork.findModularityCommunities(readResolution(scanner), COMMUNITY_SEED, namer);
+        } else if (method.equals("3")) {
+            communities = currentNetwork.findLabelPropagationCommunities(0.001, COMMUNITY_SEED, namer);
+        } else {
+            communities = currentNetwork.findCommunities(namer);
+        }
         System.out.println("Communities found: " + communities.size());
         for (Community community : communities) {
             System.out.println("\n================\n");
@@ -177,8 +381,28 @@ public class NetworkService {
     }
 
 
+    // Asks until the answer is a positive number; blank keeps the standard modularity resolution of 1.0
+    private static double readResolution(Scanner scanner) {
+        while (true) {
+            System.out.println("Enter resolution (blank for 1.0): ");
+            String answer = scanner.nextLine().trim();
+            if (answer.isEmpty()) {
+                return 1.0;
+            }
+            try {
+                double resolution = Double.parseDouble(answer);
+                if (resolution > 0 && Double.isFinite(resolution)) {
+                    return resolution;
+                }
+            } catch (NumberFormatException ignored) {
+                // Re-prompt below
+            }
+            System.out.println("Resolution must be a positive number!");
+        }
+    }
+
     public void predictInteractions() {
-        if (currentNetwork == null || currentNetwork.getProteins().size() < 2) {
+        if (currentNetwork == null || currentNetwork.getProteinCount() < 2) {
             System.out.println("Need at least 2 proteins to predict interactions!");
             return;
         }
@@ -293,9 +517,17 @@ public class NetworkService {
             }
         }
         System.out.println("Fetched " + fetched + " new proteins!");
+        printClusteringReport();
         AuditService.INSTANCE.log("fetched_new_proteins|" + fetchedProteins.size());
     }
 
+    private void printClusteringReport() {
+        TriangleCount triangles = currentNetwork.findTriangles();
+        System.out.println("Triangles: " + triangles.totalTriangles()
+                + ", transitivity: " + String.format("%.4f", triangles.transitivity())
+                + ", average clustering: " + String.format("%.4f", triangles.averageClustering()));
+    }
+
     private String getRandomProtein() {
         List<String> available = new ArrayList<>(availableProteins);
         available.removeAll(fetchedProteins);
@@ -375,7 +607,7 @@ public class NetworkService {
     }
 
     public void generateNetworkImage() {
-        if (currentNetwork == null || currentNetwork.getProteins().isEmpty()) {
+        if (currentNetwork == null || currentNetwork.getProteinCount() == 0) {
             System.out.println("No active network or network is empty!");
             return;
         }
@@ -642,6 +874,8 @@ public class NetworkService {
         System.out.println("1. Create new network");
         System.out.println("2. List available networks");
         System.out.println("3. Load network");
+        System.out.println("20. Compare saved networks");
+        System.out.println("21. Merge saved networks");
         if (currentNetwork != null) {
             System.out.println("4. Save network");
             System.out.println("» Protein Options:");
@@ -658,6 +892,10 @@ public class NetworkService {
             System.out.println("14. Show hub proteins");
             System.out.println("15. Show communities");
             System.out.println("16. Delete community from network");
+            System.out.println("17. Show bottleneck proteins");
+            System.out.println("18. Show influential proteins (PageRank)");
+            System.out.println("19. Find path between proteins");
+            System.out.println("22. Show graphlet statistics");
 
         }
         System.out.println("0. Exit");
@@ -733,6 +971,24 @@ public class NetworkService {
                 case 16:
                     deleteCommunity();
                     break;
+                case 17:
+                    getBottleneckProteins();
+                    break;
+                case 18:
+                    getInfluentialProteins();
+                    break;
+                case 19:
+                    findPathBetweenProteins();
+                    break;
+                case 20:
+                    compareNetworks();
+                    break;
+                case 21:
+                    mergeNetworks();
+                    break;
+                case 22:
+                    getGraphletStatistics();
+                    break;
 
                 default:
                     System.out.println("Invalid option");
@@ -0,0 +1,254 @@
+package org.pina.service;
+
+import org.pina.model.Protein;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Read-only view of a network snapshot restricted to a set of proteins and/or a minimum confidence.
+// A view shares the snapshot's CSR arrays and carries at most a node bit mask, so creating one never
+// copies proteins or interactions, and a confidence threshold is O(1) to apply. The analytics below
+// skip filtered nodes and edges while they scan; toCsrGraph() materialises the view for the others.
+public final class NetworkView {
+
+    private final CsrGraph graph;
+    private final BitSet nodes;
+    private final double minConfidence;
+    private PathFinder pathFinder;
+
+    NetworkView(CsrGraph graph) {
+        this(graph, null, Double.NEGATIVE_INFINITY);
+    }
+
+    private NetworkView(CsrGraph graph, BitSet nodes, double minConfidence) {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.minConfidence = minConfidence;
+    }
+
+    // Keeps only interactions with at least the given confidence score
+    public NetworkView withMinConfidence(double threshold) {
+        return new NetworkView(graph, nodes, Math.max(minConfidence, threshold));
+    }
+
+    // Keeps only proteins of the given type, e.g. HumanProtein.class or ViralProtein.class
+    public NetworkView onlyType(Class<? extends Protein> type) {
+        BitSet mask = new BitSet(graph.nodeCount());
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            if (contains(v) && type.isInstance(graph.proteinAt(v))) mask.set(v);
+        }
+        return new NetworkView(graph, mask, minConfidence);
+    }
+
+    // Proteins within the given number of interactions of the center, counting only edges of this view
+    public NetworkView egoNetwork(Protein center, int hops) {
+        int source = indexOf(center);
+        BitSet mask = new BitSet(graph.nodeCount());
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        int[] frontier = {source};
+        mask.set(source);
+        for (int depth = 0; depth < hops && frontier.length > 0; depth++) {
+            int[] next = new int[16];
+            int size = 0;
+            for (int v : frontier) {
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = neighbors[i];
+                    if (!usable(i, u) || mask.get(u)) continue;
+                    mask.set(u);
+                    if (size == next.length) next = Arrays.copyOf(next, size * 2);
+                    next[size++] = u;
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+        }
+        return new NetworkView(graph, mask, minConfidence);
+    }
+
+    public boolean contains(Protein protein) {
+        int v = graph.indexOf(protein);
+        return v >= 0 && contains(v);
+    }
+
+    public int getProteinCount() {
+        return nodes == null ? graph.nodeCount() : nodes.cardinality();
+    }
+
+    public int getInteractionCount() {
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        int count = 0;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            if (!contains(v)) continue;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (neighbors[i] > v && usable(i, neighbors[i])) count++;
+            }
+        }
+        return count;
+    }
+
+    public int getDegree(Protein protein) {
+        return degree(indexOf(protein));
+    }
+
+    // The k best-connected proteins of the view, ties by name
+    public List<Map.Entry<Protein, Integer>> topHubs(int k) {
+        List<Map.Entry<Protein, Integer>> hubs = new ArrayList<>(getProteinCount());
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            if (contains(v)) hubs.add(new AbstractMap.SimpleEntry<>(graph.proteinAt(v), degree(v)));
+        }
+        hubs.sort(
+                Comparator.<Map.Entry<Protein, Integer>, Integer>comparing(Map.Entry::getValue)
+                        .reversed()
+                        .thenComparing(e -> e.getKey().getName())
+        );
+        return hubs.subList(0, Math.min(k, hubs.size()));
+    }
+
+    public int getComponentCount() {
+        return componentLabels()[graph.nodeCount()];
+    }
+
+    // Connected components of the view, largest first
+    public List<Set<Protein>> findConnectedComponents() {
+        int[] labels = componentLabels();
+        int count = labels[graph.nodeCount()];
+        List<Set<Protein>> components = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            components.add(new HashSet<>());
+        }
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            if (labels[v] >= 0) components.get(labels[v]).add(graph.proteinAt(v));
+        }
+        components.sort(Comparator.comparingInt(Set<Protein>::size).reversed());
+        return components;
+    }
+
+    // BFS labels per node, -1 outside the view; the extra last slot holds the component count
+    private int[] componentLabels() {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        int[] labels = new int[n + 1];
+        Arrays.fill(labels, 0, n, -1);
+        int[] queue = new int[n];
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (!contains(s) || labels[s] >= 0) continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s;
+            labels[s] = count;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = neighbors[i];
+                    if (labels[u] < 0 && usable(i, u)) {
+                        labels[u] = count;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            count++;
+        }
+        labels[n] = count;
+        return labels;
+    }
+
+    // Number of interactions on a shortest path inside the view, or -1 when there is none
+    public int getHopDistance(Protein from, Protein to) {
+        return pathFinder().hopDistance(indexOf(from), indexOf(to));
+    }
+
+    public List<Protein> findShortestPath(Protein from, Protein to) {
+        return toProteins(pathFinder().shortestPath(indexOf(from), indexOf(to)));
+    }
+
+    public List<Protein> findMostConfidentPath(Protein from, Protein to) {
+        return toProteins(pathFinder().mostConfidentPath(indexOf(from), indexOf(to)));
+    }
+
+    // Copies the view's adjacency into a graph of its own, for the analytics that take a CsrGraph
+    public CsrGraph toCsrGraph() {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        double[] weights = graph.weights();
+        int[] dense = new int[n];
+        Protein[] proteins = new Protein[getProteinCount()];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (contains(v)) {
+                dense[v] = count;
+                proteins[count++] = graph.proteinAt(v);
+            }
+        }
+        int edges = getInteractionCount();
+        int[] source = new int[edges];
+        int[] target = new int[edges];
+        double[] score = new double[edges];
+        int e = 0;
+        for (int v = 0; v < n; v++) {
+            if (!contains(v)) continue;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int u = neighbors[i];
+                if (u > v && usable(i, u)) {
+                    source[e] = dense[v];
+                    target[e] = dense[u];
+                    score[e++] = weights[i];
+                }
+            }
+        }
+        return CsrGraph.fromEdges(proteins, source, target, score, edges);
+    }
+
+    private PathFinder pathFinder() {
+        if (pathFinder == null) {
+            pathFinder = new PathFinder(graph, 0, nodes, minConfidence);
+        }
+        return pathFinder;
+    }
+
+    private List<Protein> toProteins(int[] path) {
+        if (path == null) return List.of();
+        List<Protein> proteins = new ArrayList<>(path.length);
+        for (int v : path) {
+            proteins.add(graph.proteinAt(v));
+        }
+        return proteins;
+    }
+
+    private int indexOf(Protein protein) {
+        int v = graph.indexOf(protein);
+        if (v < 0 || !contains(v)) {
+            throw new IllegalArgumentException("Protein " + protein.getName() + " is not part of this view");
+        }
+        return v;
+    }
+
+    private boolean contains(int v) {
+        return nodes == null || nodes.get(v);
+    }
+
+    private int degree(int v) {
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        int degree = 0;
+        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+            if (usable(i, neighbors[i])) degree++;
+        }
+        return degree;
+    }
+
+    // Edge i leading to neighbour u belongs to the view
+    private boolean usable(int i, int u) {
+        return graph.weights()[i] >= minConfidence && contains(u);
+    }
+}
@@ -1,179 +1,909 @@
 package org.pina.service;
-import org.graalvm.collections.Pair;
 import org.pina.model.*;
 
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 
 
 public class PPINetwork {
 
+    private static final int[] NO_EDGES = new int[0];
+    private static final int LABEL_PROPAGATION_MAX_ITERATIONS = 100;
+    private static final double LINK_ANALYSIS_TOLERANCE = 1e-10;
+    private static final int LINK_ANALYSIS_MAX_ITERATIONS = 200;
+
     private String networkName;
-    private List<Protein> networkProteins;
 
-    private List<Interaction> interactions;
-    private Map<Protein, List<Protein>> adjacencyList;
-    private Set<Community> communities;
+    // Getters hand out read-only snapshots of the current state: interactions and the protein order live
+    // in copy-on-write arrays, and the community set is rebuilt only after communities change
+    private SnapshotArray<Interaction> interactions;
+    private Map<String, Community> communities;
+    private Set<Community> communitySnapshot;
+    private final Map<String, Set<String>> detectedCommunityIds = new HashMap<>();
+    private CsrGraph csrGraph;
+    private PathFinder pathFinder;
+    private int landmarkCount;
+    private final ChangeJournal changes = new ChangeJournal();
+
+    // Every protein is interned to a node id in insertion order; removed proteins leave a null slot
+    // until enough of them accumulate to compact the ids
+    private final List<Protein> nodes = new ArrayList<>();
+    private int proteinCount;
+    // Live proteins in node id order; rebuilt from nodes on the next read after a removal
+    private SnapshotArray<Protein> proteinOrder;
+    private boolean proteinOrderStale;
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private final NameIndex proteinsByName = new NameIndex();
+    private final NameIndex proteinsByLowerName = new NameIndex();
+
+    // Edge slot s holds interactions.get(s); its node ids are edgeNodes[2s], edgeNodes[2s + 1] and its
+    // positions in those nodes' incidence rows are edgePositions[2s], edgePositions[2s + 1]
+    private final EdgeIndex edgeIndex;
+    private int[] edgeNodes;
+    private int[] edgePositions;
+
+    // incidence[v][0 .. incidenceCount[v]) lists the edge slots touching node v
+    private int[][] incidence;
+    private int[] incidenceCount;
+
+    // Neighbour counts (self-loops excluded) kept sorted for hub queries, and confidence-weighted degrees
+    private DegreeIndex degreeIndex;
+    private double[] weightedDegree;
+
+    // Component labels maintained on every edit; removals are resolved lazily on the next query
+    private DynamicComponents components;
+    private final DynamicComponents.Graph componentGraph = new DynamicComponents.Graph() {
+        @Override
+        public boolean isLive(int node) {
+            return nodes.get(node) != null;
+        }
+
+        @Override
+        public int degree(int node) {
+            return incidenceCount[node];
+        }
+
+        @Override
+        public int neighbor(int node, int index) {
+            int slot = incidence[node][index];
+            int u = edgeNodes[2 * slot];
+            return u == node ? edgeNodes[2 * slot + 1] : u;
+        }
+    };
 
     public PPINetwork(String networkName) {
-        this.networkName = networkName;
-        networkProteins = new ArrayList<>();
-        adjacencyList = new HashMap<>();
-        communities = new HashSet<>();
-        interactions = new ArrayList<>();
+        this(networkName, 16, 16);
+        communities = new LinkedHashMap<>();
+    }
+
+    public PPINetwork(String networkName, List<Protein> networkProteins, List<Interaction> interactions, Set<Community> communities) {
+        this(networkName, networkProteins.size(), interactions.size());
+        this.communities = new LinkedHashMap<>(communities.size() * 2);
+        for (Community community : communities) {
+            this.communities.put(community.getId(), community);
+        }
+        for (Protein protein : networkProteins) {
+            putProtein(protein);
+        }
+        for (Interaction interaction : interactions) {
+            putInteraction(interaction.getProtein1(), interaction.getProtein2(), interaction.getConfidenceScore());
+        }
     }
 
-    public PPINetwork(String networkName, List<Protein> networkProteins, List<Interaction> interactions, Set<Community> communities, Map<Protein, List<Protein>> adjacencyList) {
+    private PPINetwork(String networkName, int expectedProteins, int expectedInteractions) {
         this.networkName = networkName;
-        this.networkProteins = networkProteins;
-        this.interactions = interactions;
-        this.communities = communities;
-        this.adjacencyList = adjacencyList;
+        this.interactions = new SnapshotArray<>(expectedInteractions);
+        this.proteinOrder = new SnapshotArray<>(expectedProteins);
+        this.edgeIndex = new EdgeIndex(expectedInteractions);
+        this.edgeNodes = new int[Math.max(32, expectedInteractions * 2)];
+        this.edgePositions = new int[edgeNodes.length];
+        this.incidence = new int[Math.max(16, expectedProteins)][];
+        this.incidenceCount = new int[incidence.length];
+        this.degreeIndex = new DegreeIndex(incidence.length);
+        this.weightedDegree = new double[incidence.length];
+        this.components = new DynamicComponents(incidence.length);
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private int nodeId(Protein protein) {
+        Integer id = nodeIds.get(key(protein.getUniprotId()));
+        if (id == null) {
+            throw new IllegalArgumentException("Protein " + protein.getName() + " is not part of network " + networkName);
+        }
+        return id;
+    }
+
+    private void indexProtein(Protein protein) {
+        if (protein.getName() != null) {
+            proteinsByName.add(protein.getName(), protein);
+        }
+        proteinsByLowerName.add(key(protein.getName()), protein);
+    }
+
+    private void unindexProtein(Protein protein) {
+        nodeIds.remove(key(protein.getUniprotId()));
+        if (protein.getName() != null) {
+            proteinsByName.remove(protein.getName(), protein);
+        }
+        proteinsByLowerName.remove(key(protein.getName()), protein);
     }
 
     public boolean addProtein(Protein protein) {
-        if (networkProteins.contains(protein)) {
+        return putProtein(protein);
+    }
+
+    // Private so constructors can add proteins without calling an overridable method
+    private boolean putProtein(Protein protein) {
+        // The UniProt id is the protein's primary key, so a second entry under the same id is a duplicate
+        String id = key(protein.getUniprotId());
+        if (nodeIds.containsKey(id)) {
 //            System.out.println("Protein " + protein.getName() + " already exists!");
             return false;
         }
-        networkProteins.add(protein);
-        adjacencyList.put(protein, new ArrayList<>());
+        int node = nodes.size();
+        if (node == incidence.length) {
+            incidence = Arrays.copyOf(incidence, node * 2);
+            incidenceCount = Arrays.copyOf(incidenceCount, node * 2);
+            weightedDegree = Arrays.copyOf(weightedDegree, node * 2);
+        }
+        incidence[node] = NO_EDGES;
+        incidenceCount[node] = 0;
+        weightedDegree[node] = 0;
+        degreeIndex.add(node);
+        components.addNode(node);
+        nodeIds.put(id, node);
+        nodes.add(protein);
+        proteinCount++;
+        if (!proteinOrderStale) {
+            proteinOrder.add(protein);
+        }
+        indexProtein(protein);
+        changes.proteinAdded(protein);
+        csrGraph = null;
         return true;
     }
 
 
     public List<Protein> getProteins() {
-        return new ArrayList<>(networkProteins);
+        if (proteinOrderStale) {
+            proteinOrder = new SnapshotArray<>(proteinCount);
+            for (Protein protein : nodes) {
+                if (protein != null) proteinOrder.add(protein);
+            }
+            proteinOrderStale = false;
+        }
+        return proteinOrder.snapshot();
+    }
+
+    public int getProteinCount() {
+        return proteinCount;
     }
 
     public boolean containsProtein(String proteinName) {
-        return networkProteins.stream()
-                .anyMatch(p -> p.getName().equalsIgnoreCase(proteinName));
+        return proteinsByLowerName.contains(key(proteinName));
     }
 
     public int getInteractionCount() {
-        return interactions.size();
+        return edgeIndex.size();
     }
 
     public void removeProtein(Protein protein) {
-        networkProteins.remove(protein);
+        Integer node = nodeIds.get(key(protein.getUniprotId()));
+        if (node == null || !nodes.get(node).equals(protein)) {
+            return;
+        }
+        detachNode(node);
+        compactIfSparse();
+    }
+
+    // Removes every given protein in one pass; proteins that are not in the network are skipped
+    public int removeProteins(Collection<? extends Protein> proteins) {
+        int removed = 0;
+        for (Protein protein : proteins) {
+            Integer node = nodeIds.get(key(protein.getUniprotId()));
+            if (node != null && nodes.get(node).equals(protein)) {
+                detachNode(node);
+                removed++;
+            }
+        }
+        compactIfSparse();
+        return removed;
+    }
+
+    // Drops the node and its incident edges; costs O(degree) rather than O(V + E)
+    private void detachNode(int node) {
+        Protein protein = nodes.get(node);
+        while (incidenceCount[node] > 0) {
+            removeEdge(incidence[node][incidenceCount[node] - 1]);
+        }
+        incidence[node] = NO_EDGES;
+        degreeIndex.remove(node);
+        components.removeNode(node);
+        nodes.set(node, null);
+        proteinCount--;
+        proteinOrderStale = true;
+        unindexProtein(protein);
+        changes.proteinRemoved(protein);
+        csrGraph = null;
+    }
+
+    private void removeEdge(int slot) {
+        changes.interactionRemoved(interactions.get(slot));
+        int u = edgeNodes[2 * slot];
+        int v = edgeNodes[2 * slot + 1];
+        edgeIndex.remove(u, v);
+        unlinkIncidence(u, edgePositions[2 * slot]);
+        if (u != v) {
+            unlinkIncidence(v, edgePositions[2 * slot + 1]);
+            double score = interactions.get(slot).getConfidenceScore();
+            weightedDegree[u] -= score;
+            weightedDegree[v] -= score;
+            degreeIndex.decrement(u);
+            degreeIndex.decrement(v);
+        }
 
-        Iterator<Interaction> iterator = interactions.iterator();
-        while (iterator.hasNext()) {
-            Interaction interaction = iterator.next();
-            if (interaction.getProtein1().equals(protein) || interaction.getProtein2().equals(protein)) {
-                iterator.remove();
+        // Move the last edge into the freed slot so slots stay dense
+        int last = interactions.size() - 1;
+        if (slot != last) {
+            int lu = edgeNodes[2 * last];
+            int lv = edgeNodes[2 * last + 1];
+            interactions.set(slot, interactions.get(last));
+            edgeNodes[2 * slot] = lu;
+            edgeNodes[2 * slot + 1] = lv;
+            edgePositions[2 * slot] = edgePositions[2 * last];
+            edgePositions[2 * slot + 1] = edgePositions[2 * last + 1];
+            incidence[lu][edgePositions[2 * slot]] = slot;
+            if (lu != lv) {
+                incidence[lv][edgePositions[2 * slot + 1]] = slot;
             }
+            edgeIndex.put(lu, lv, slot);
         }
+        interactions.removeLast();
+    }
 
-        adjacencyList.remove(protein);
+    // Swap-removes position pos from node's incidence row and fixes the moved edge's back-pointer
+    private void unlinkIncidence(int node, int pos) {
+        int lastPos = --incidenceCount[node];
+        if (pos != lastPos) {
+            int moved = incidence[node][lastPos];
+            incidence[node][pos] = moved;
+            // A self-loop has a single incidence entry that both of its sides point at
+            if (edgeNodes[2 * moved] == edgeNodes[2 * moved + 1]) {
+                edgePositions[2 * moved] = pos;
+                edgePositions[2 * moved + 1] = pos;
+            } else {
+                edgePositions[2 * moved + (edgeNodes[2 * moved] == node ? 0 : 1)] = pos;
+            }
+        }
+    }
+
+    private void linkIncidence(int node, int slot, int side) {
+        int[] row = incidence[node];
+        if (incidenceCount[node] == row.length) {
+            row = Arrays.copyOf(row, Math.max(4, row.length * 2));
+            incidence[node] = row;
+        }
+        row[incidenceCount[node]] = slot;
+        edgePositions[2 * slot + side] = incidenceCount[node]++;
+    }
+
+    // Renumbers node ids once more than half of them belong to removed proteins
+    private void compactIfSparse() {
+        int dead = nodes.size() - proteinCount;
+        if (dead < 64 || dead < proteinCount) {
+            return;
+        }
+        int[] remap = new int[nodes.size()];
+        int next = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            Protein protein = nodes.get(node);
+            if (protein == null) continue;
+            remap[node] = next;
+            nodes.set(next, protein);
+            incidence[next] = incidence[node];
+            incidenceCount[next] = incidenceCount[node];
+            weightedDegree[next] = weightedDegree[node];
+            nodeIds.put(key(protein.getUniprotId()), next);
+            next++;
+        }
+        nodes.subList(next, nodes.size()).clear();
+        Arrays.fill(incidence, next, incidence.length, null);
 
-        for (List<Protein> neighbors : adjacencyList.values()) {
-            neighbors.remove(protein);
+        edgeIndex.clear();
+        degreeIndex = new DegreeIndex(incidence.length);
+        for (int node = 0; node < next; node++) {
+            degreeIndex.add(node);
+        }
+        for (int slot = 0; slot < interactions.size(); slot++) {
+            int u = remap[edgeNodes[2 * slot]];
+            int v = remap[edgeNodes[2 * slot + 1]];
+            edgeNodes[2 * slot] = u;
+            edgeNodes[2 * slot + 1] = v;
+            edgeIndex.put(u, v, slot);
+            if (u != v) {
+                degreeIndex.increment(u);
+                degreeIndex.increment(v);
+            }
         }
+        // Every node is live again, so CSR indexes equal node ids and the parallel union-find over the
+        // fresh graph relabels all components at once; the graph stays cached for the next analysis
+        components = DynamicComponents.of(ConnectedComponents.compute(getCsrGraph()), incidence.length);
     }
 
 
     public Protein findProteinById(String uniprotId) {
-        return networkProteins.stream()
-                .filter(p -> p.getUniprotId().equalsIgnoreCase(uniprotId))
-                .findFirst()
-                .orElse(null);
+        Integer id = nodeIds.get(key(uniprotId));
+        return id == null ? null : nodes.get(id);
+    }
+
+    public Interaction findInteraction(Protein p1, Protein p2) {
+        Integer u = nodeIds.get(key(p1.getUniprotId()));
+        Integer v = nodeIds.get(key(p2.getUniprotId()));
+        if (u == null || v == null) return null;
+        int slot = edgeIndex.get(u, v);
+        return slot < 0 ? null : interactions.get(slot);
     }
 
     public void addInteraction(Protein p1, Protein p2, double score) {
-        Interaction interaction = new Interaction(p1, p2, score);
-        if (!interactions.contains(interaction)) {
-            interactions.add(interaction);
-            adjacencyList.get(p1).add(p2);
-            adjacencyList.get(p2).add(p1);
-        }
+        putInteraction(p1, p2, score);
         AuditService.INSTANCE.log("interaction_added|"+p1.getName()+";"+p2.getName()+";"+score);
     }
 
+    // Removes the edge between the two proteins; returns false when they are not connected
+    public boolean removeInteraction(Protein p1, Protein p2) {
+        Integer u = nodeIds.get(key(p1.getUniprotId()));
+        Integer v = nodeIds.get(key(p2.getUniprotId()));
+        if (u == null || v == null) return false;
+        int slot = edgeIndex.get(u, v);
+        if (slot < 0) return false;
+        removeEdge(slot);
+        if (u.intValue() != v.intValue()) {
+            components.removeEdge(u);
+        }
+        csrGraph = null;
+        AuditService.INSTANCE.log("interaction_removed|" + p1.getName() + ";" + p2.getName());
+        return true;
+    }
+
+    // Adds the edge, or updates its score when the pair is already connected; returns true if the edge is new
+    private boolean putInteraction(Protein p1, Protein p2, double score) {
+        int u = nodeId(p1);
+        int v = nodeId(p2);
+        int slot = edgeIndex.get(u, v);
+        if (slot >= 0) {
+            Interaction existing = interactions.get(slot);
+            double delta = score - existing.getConfidenceScore();
+            if (delta != 0) {
+                // Snapshots handed out earlier still hold the old object, so it is replaced rather than rescored
+                Interaction rescored = new Interaction(existing.getProtein1(), existing.getProtein2(), score);
+                interactions.set(slot, rescored);
+                changes.interactionChanged(rescored);
+                if (u != v) {
+                    weightedDegree[u] += delta;
+                    weightedDegree[v] += delta;
+                }
+                csrGraph = null;
+            }
+            return false;
+        }
+
+        slot = interactions.size();
+        Interaction interaction = new Interaction(nodes.get(u), nodes.get(v), score);
+        interactions.add(interaction);
+        changes.interactionChanged(interaction);
+        if (edgeNodes.length < 2 * (slot + 1)) {
+            edgeNodes = Arrays.copyOf(edgeNodes, edgeNodes.length * 2);
+            edgePositions = Arrays.copyOf(edgePositions, edgeNodes.length);
+        }
+        edgeNodes[2 * slot] = u;
+        edgeNodes[2 * slot + 1] = v;
+        edgeIndex.put(u, v, slot);
+        linkIncidence(u, slot, 0);
+        if (u != v) {
+            linkIncidence(v, slot, 1);
+            weightedDegree[u] += score;
+            weightedDegree[v] += score;
+            degreeIndex.increment(u);
+            degreeIndex.increment(v);
+            components.union(u, v);
+        } else {
+            edgePositions[2 * slot + 1] = edgePositions[2 * slot];
+        }
+        csrGraph = null;
+        return true;
+    }
+
+    public CsrGraph getCsrGraph() {
+        if (csrGraph == null) {
+            csrGraph = buildCsrGraph();
+        }
+        return csrGraph;
+    }
+
+    // Filtered views over the current state; they share its graph arrays and do not follow later edits
+    public NetworkView view() {
+        return new NetworkView(getCsrGraph());
+    }
+
+    public NetworkView egoNetwork(Protein center, int hops) {
+        return view().egoNetwork(nodes.get(nodeId(center)), hops);
+    }
+
+    public NetworkView confidenceView(double minConfidence) {
+        return view().withMinConfidence(minConfidence);
+    }
+
+    public NetworkView typeView(Class<? extends Protein> type) {
+        return view().onlyType(type);
+    }
+
+    private CsrGraph buildCsrGraph() {
+        int[] dense = new int[nodes.size()];
+        Protein[] proteins = new Protein[proteinCount];
+        int n = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            Protein protein = nodes.get(node);
+            if (protein != null) {
+                dense[node] = n;
+                proteins[n++] = protein;
+            }
+        }
+
+        int edges = interactions.size();
+        int[] source = new int[edges];
+        int[] target = new int[edges];
+        double[] score = new double[edges];
+        int count = 0;
+        for (int slot = 0; slot < edges; slot++) {
+            int u = edgeNodes[2 * slot];
+            int v = edgeNodes[2 * slot + 1];
+            // Self-loops carry no topology for the analytics
+            if (u == v) continue;
+            source[count] = dense[u];
+            target[count] = dense[v];
+            score[count] = interactions.get(slot).getConfidenceScore();
+            count++;
+        }
+        return CsrGraph.fromEdges(proteins, source, target, score, count);
+    }
+
     public List<Map.Entry<Protein, Integer>> findHubProteins() {
-        List<Map.Entry<Protein, Integer>> hubProteins = new ArrayList<>();
+        return topHubs(proteinCount);
+    }
 
-        for (Protein protein : networkProteins) {
-            List<Protein> neighbors = adjacencyList.getOrDefault(protein, Collections.emptyList());
-            hubProteins.add(new AbstractMap.SimpleEntry<>(protein, neighbors.size()));
+    // The k proteins with most interaction partners, ties by name. Walks the degree buckets from the top,
+    // so only the buckets that reach into the top k are looked at.
+    public List<Map.Entry<Protein, Integer>> topHubs(int k) {
+        k = Math.min(k, proteinCount);
+        Comparator<Protein> byName = Comparator.comparing(Protein::getName);
+        List<Map.Entry<Protein, Integer>> hubs = new ArrayList<>(k);
+        int rank = 0;
+        while (hubs.size() < k) {
+            int degree = degreeIndex.degree(degreeIndex.nodeAt(rank));
+            int bucketEnd = degreeIndex.countAtLeast(degree);
+            int take = Math.min(k - hubs.size(), bucketEnd - rank);
+
+            // Keep the `take` smallest names of the bucket in a max-heap
+            PriorityQueue<Protein> bucket = new PriorityQueue<>(take + 1, byName.reversed());
+            for (int r = rank; r < bucketEnd; r++) {
+                bucket.add(nodes.get(degreeIndex.nodeAt(r)));
+                if (bucket.size() > take) bucket.poll();
+            }
+            List<Protein> tied = new ArrayList<>(bucket);
+            tied.sort(byName);
+            for (Protein protein : tied) {
+                hubs.add(new AbstractMap.SimpleEntry<>(protein, degree));
+            }
+            rank = bucketEnd;
         }
+        return hubs;
+    }
+
+    // The k proteins with the highest summed confidence over their interactions, ties by name
+    public List<Map.Entry<Protein, Double>> topWeightedHubs(int k) {
+        k = Math.min(k, proteinCount);
+        Comparator<Integer> weakestFirst = Comparator.<Integer>comparingDouble(node -> weightedDegree[node])
+                .thenComparing(node -> nodes.get(node).getName(), Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, weakestFirst);
+        for (int node = 0; node < nodes.size() && k > 0; node++) {
+            if (nodes.get(node) == null) continue;
+            heap.add(node);
+            if (heap.size() > k) heap.poll();
+        }
+        List<Map.Entry<Protein, Double>> hubs = new ArrayList<>(k);
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            hubs.add(new AbstractMap.SimpleEntry<>(nodes.get(node), weightedDegree[node]));
+        }
+        Collections.reverse(hubs);
+        return hubs;
+    }
+
+    // Proteins ranked by exact betweenness centrality, highest first
+    public List<Map.Entry<Protein, Double>> findBottleneckProteins() {
+        CsrGraph graph = getCsrGraph();
+        return rankProteins(graph, new BetweennessCentrality().exact(graph));
+    }
+
+    // Sampled betweenness: with probability 1 - delta each score is within epsilon * n(n - 2) / 2 of exact
+    public List<Map.Entry<Protein, Double>> findBottleneckProteins(double epsilon, double delta, long seed) {
+        CsrGraph graph = getCsrGraph();
+        return rankProteins(graph, new BetweennessCentrality().approximate(graph, epsilon, delta, seed));
+    }
+
+    public List<Map.Entry<Protein, Double>> findPageRank(double damping) {
+        return findPageRank(damping, LINK_ANALYSIS_TOLERANCE, LINK_ANALYSIS_MAX_ITERATIONS);
+    }
 
-        hubProteins.sort(
-                Comparator.<Map.Entry<Protein, Integer>, Integer>comparing(Map.Entry::getValue)
+    // Random walk along confidence-weighted interactions; stops when the L1 change drops below tolerance
+    public List<Map.Entry<Protein, Double>> findPageRank(double damping, double tolerance, int maxIterations) {
+        CsrGraph graph = getCsrGraph();
+        return rankProteins(graph, new LinkAnalysis(tolerance, maxIterations).pageRank(graph, damping));
+    }
+
+    public List<Map.Entry<Protein, Double>> findPersonalizedPageRank(Collection<Protein> seeds, double damping) {
+        return findPersonalizedPageRank(seeds, damping, LINK_ANALYSIS_TOLERANCE, LINK_ANALYSIS_MAX_ITERATIONS);
+    }
+
+    // PageRank restarting only at the seed proteins: ranks the network by proximity to the seeds
+    public List<Map.Entry<Protein, Double>> findPersonalizedPageRank(Collection<Protein> seeds, double damping,
+                                                                     double tolerance, int maxIterations) {
+        CsrGraph graph = getCsrGraph();
+        int[] seedIndexes = new int[seeds.size()];
+        int count = 0;
+        for (Protein seed : seeds) {
+            seedIndexes[count++] = graph.indexOf(nodes.get(nodeId(seed)));
+        }
+        LinkAnalysis analysis = new LinkAnalysis(tolerance, maxIterations);
+        return rankProteins(graph, analysis.personalizedPageRank(graph, damping, seedIndexes));
+    }
+
+    public List<Map.Entry<Protein, Double>> findEigenvectorCentrality() {
+        return findEigenvectorCentrality(LINK_ANALYSIS_TOLERANCE, LINK_ANALYSIS_MAX_ITERATIONS);
+    }
+
+    public List<Map.Entry<Protein, Double>> findEigenvectorCentrality(double tolerance, int maxIterations) {
+        CsrGraph graph = getCsrGraph();
+        return rankProteins(graph, new LinkAnalysis(tolerance, maxIterations).eigenvectorCentrality(graph));
+    }
+
+    private static List<Map.Entry<Protein, Double>> rankProteins(CsrGraph graph, double[] scores) {
+        List<Map.Entry<Protein, Double>> ranked = new ArrayList<>(scores.length);
+        for (int v = 0; v < scores.length; v++) {
+            ranked.add(new AbstractMap.SimpleEntry<>(graph.proteinAt(v), scores[v]));
+        }
+        ranked.sort(
+                Comparator.<Map.Entry<Protein, Double>, Double>comparing(Map.Entry::getValue)
                         .reversed()
                         .thenComparing(e -> e.getKey().getName())
         );
+        return ranked;
+    }
 
-        return hubProteins;
+    public int getDegree(Protein protein) {
+        return degreeIndex.degree(nodeId(protein));
+    }
+
+    public double getWeightedDegree(Protein protein) {
+        return weightedDegree[nodeId(protein)];
     }
 
     public Protein findProtein(String proteinName) {
-        for (Protein protein : networkProteins) {
-            if(protein.getName().equals(proteinName))
-                return protein;
+        return proteinName == null ? null : proteinsByName.get(proteinName);
+    }
+
+    // Precomputes distances from the given number of landmarks to speed up most-confident path queries;
+    // the index is rebuilt lazily after the network changes. Zero turns it off.
+    public void buildLandmarkIndex(int landmarks) {
+        landmarkCount = landmarks;
+        pathFinder = new PathFinder(getCsrGraph(), landmarks);
+    }
+
+    // Number of interactions between the proteins, or -1 when they are not connected
+    public int getHopDistance(Protein from, Protein to) {
+        PathFinder finder = pathFinder();
+        return finder.hopDistance(pathIndex(finder, from), pathIndex(finder, to));
+    }
+
+    // Fewest-hop path including both ends; empty when the proteins are not connected
+    public List<Protein> findShortestPath(Protein from, Protein to) {
+        PathFinder finder = pathFinder();
+        return toProteins(finder, finder.shortestPath(pathIndex(finder, from), pathIndex(finder, to)));
+    }
+
+    public List<Protein> findShortestPath(String from, String to) {
+        return findShortestPath(lookupProtein(from), lookupProtein(to));
+    }
+
+    // Path with the highest product of confidence scores; empty when the proteins are not connected
+    public List<Protein> findMostConfidentPath(Protein from, Protein to) {
+        PathFinder finder = pathFinder();
+        return toProteins(finder, finder.mostConfidentPath(pathIndex(finder, from), pathIndex(finder, to)));
+    }
+
+    public List<Protein> findMostConfidentPath(String from, String to) {
+        return findMostConfidentPath(lookupProtein(from), lookupProtein(to));
+    }
+
+    private PathFinder pathFinder() {
+        CsrGraph graph = getCsrGraph();
+        if (pathFinder == null || pathFinder.graph() != graph) {
+            pathFinder = new PathFinder(graph, landmarkCount);
         }
-        return null;
+        return pathFinder;
     }
 
-    public List<Community> findCommunities() {
-        Set<Protein> verified = new HashSet<>();
-        List<List<Protein>> hubCommunities = new ArrayList<>();
+    private int pathIndex(PathFinder finder, Protein protein) {
+        return finder.graph().indexOf(nodes.get(nodeId(protein)));
+    }
 
-        Set<Protein> proteinsInExistingCommunities = new HashSet<>();
-        for (Community c : communities) {
-            proteinsInExistingCommunities.addAll(c.getProteins());
+    private static List<Protein> toProteins(PathFinder finder, int[] path) {
+        if (path == null) return List.of();
+        List<Protein> proteins = new ArrayList<>(path.length);
+        for (int v : path) {
+            proteins.add(finder.graph().proteinAt(v));
         }
+        return proteins;
+    }
 
-        for (Protein protein : networkProteins) {
-            if (!verified.contains(protein) && !proteinsInExistingCommunities.contains(protein)) {
-                List<Protein> proteins = findProteinCommunity(protein);
-                hubCommunities.add(proteins);
-                verified.addAll(proteins);
+    // Accepts a protein name or a UniProt id
+    private Protein lookupProtein(String nameOrId) {
+        Protein protein = findProtein(nameOrId);
+        if (protein == null) {
+            protein = findProteinById(nameOrId);
+        }
+        if (protein == null) {
+            throw new IllegalArgumentException("Protein " + nameOrId + " is not part of network " + networkName);
+        }
+        return protein;
+    }
+
+    // Core number of every protein: the largest k such that the protein lies in the k-core
+    public Map<Protein, Integer> findCoreNumbers() {
+        CsrGraph graph = getCsrGraph();
+        CoreDecomposition cores = CoreDecomposition.compute(graph);
+        Map<Protein, Integer> coreNumbers = new LinkedHashMap<>(graph.nodeCount() * 2);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            coreNumbers.put(graph.proteinAt(v), cores.coreNumber(v));
+        }
+        return coreNumbers;
+    }
+
+    // Maximal subnetwork in which every protein interacts with at least k others, as a new network
+    public PPINetwork findKCore(int k) {
+        CoreDecomposition cores = CoreDecomposition.compute(getCsrGraph());
+        // CSR indexes number the live nodes in node id order
+        boolean[] kept = new boolean[nodes.size()];
+        List<Protein> proteins = new ArrayList<>();
+        int dense = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            if (nodes.get(node) == null) continue;
+            if (cores.coreNumber(dense++) >= k) {
+                kept[node] = true;
+                proteins.add(nodes.get(node));
+            }
+        }
+        List<Interaction> coreInteractions = new ArrayList<>();
+        for (int slot = 0; slot < interactions.size(); slot++) {
+            if (kept[edgeNodes[2 * slot]] && kept[edgeNodes[2 * slot + 1]]) {
+                coreInteractions.add(interactions.get(slot));
             }
         }
+        return new PPINetwork(networkName + "-core-" + k, proteins, coreInteractions, Set.of());
+    }
 
-        Scanner scanner = new Scanner(System.in);
+    public TriangleCount findTriangles() {
+        return TriangleCount.compute(getCsrGraph());
+    }
 
-        for (List<Protein> hubCommunity : hubCommunities) {
-            Set<Protein> proteinsSet = new HashSet<>(hubCommunity);
+    // Graphlet and orbit counts; node indexes follow getCsrGraph()
+    public GraphletCount findGraphlets() {
+        return GraphletCount.compute(getCsrGraph());
+    }
+
+    // Graphlet degree vector (orbits 0..14) of every protein
+    public Map<Protein, long[]> findGraphletDegreeVectors() {
+        CsrGraph graph = getCsrGraph();
+        GraphletCount graphlets = GraphletCount.compute(graph);
+        Map<Protein, long[]> vectors = new LinkedHashMap<>(graph.nodeCount() * 2);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            vectors.put(graph.proteinAt(v), graphlets.graphletDegreeVector(v));
+        }
+        return vectors;
+    }
+
+    // Local clustering coefficient of every protein
+    public Map<Protein, Double> findClusteringCoefficients() {
+        CsrGraph graph = getCsrGraph();
+        TriangleCount triangles = TriangleCount.compute(graph);
+        Map<Protein, Double> coefficients = new LinkedHashMap<>(graph.nodeCount() * 2);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            coefficients.put(graph.proteinAt(v), triangles.localClustering(v));
+        }
+        return coefficients;
+    }
 
-            Community matchedCommunity = null;
-            for (Community existingCommunity : communities) {
-                if (existingCommunity.getProteins().containsAll(proteinsSet)) {
-                    matchedCommunity = existingCommunity;
+    // Component indexes follow getCsrGraph(); built from the maintained labels without scanning interactions
+    public ConnectedComponents findConnectedComponents() {
+        return componentsOf(liveNodes());
+    }
+
+    public int getComponentCount() {
+        return components().componentCount();
+    }
+
+    public boolean isConnected(Protein p1, Protein p2) {
+        DynamicComponents c = components();
+        return c.labelOf(nodeId(p1)) == c.labelOf(nodeId(p2));
+    }
+
+    // Number of proteins in the protein's connected component
+    public int getComponentSize(Protein protein) {
+        return components().sizeOf(nodeId(protein));
+    }
+
+    private DynamicComponents components() {
+        components.refresh(componentGraph);
+        return components;
+    }
+
+    // Live node ids in id order, which is also the CSR index order
+    private int[] liveNodes() {
+        int[] live = new int[proteinCount];
+        int count = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            if (nodes.get(node) != null) live[count++] = node;
+        }
+        return live;
+    }
+
+    private ConnectedComponents componentsOf(int[] live) {
+        DynamicComponents c = components();
+        int[] labels = new int[live.length];
+        for (int v = 0; v < live.length; v++) {
+            labels[v] = c.labelOf(live[v]);
+        }
+        return ConnectedComponents.fromLabels(labels, c.labelBound());
+    }
+
+    // Connected components become communities named after their hub protein; see findCommunities(CommunityNamer)
+    public List<Community> findCommunities() {
+        return findCommunities(CommunityNamer.byHub());
+    }
+
+    public List<Community> findCommunities(CommunityNamer namer) {
+        int[] live = liveNodes();
+        ConnectedComponents components = componentsOf(live);
+
+        // A component needs a new community as soon as one of its proteins is not covered yet
+        boolean[] covered = new boolean[nodes.size()];
+        for (Community c : communities.values()) {
+            for (Protein p : c.getProteins()) {
+                Integer node = nodeIds.get(key(p.getUniprotId()));
+                if (node != null && p.equals(nodes.get(node))) covered[node] = true;
+            }
+        }
+
+        int rank = 0;
+        for (int[] members : components.groups()) {
+            boolean uncovered = false;
+            for (int v : members) {
+                if (!covered[live[v]]) {
+                    uncovered = true;
                     break;
                 }
             }
+            if (!uncovered) continue;
 
-            if (matchedCommunity == null) {
-                System.out.println("Enter community name for new community with proteins:");
-                for (Protein p : proteinsSet) {
-                    System.out.println(" - " + p.getName() + " (" + p.getUniprotId() + ")");
-                }
-                String communityName = scanner.nextLine().trim();
+            Community newCommunity = toCommunity(members, v -> nodes.get(live[v]), v -> degreeIndex.degree(live[v]),
+                    "component", ++rank, namer);
+            communities.put(newCommunity.getId(), newCommunity);
+            changes.communityChanged(newCommunity);
+            communitySnapshot = null;
+        }
 
-                Community newCommunity = new Community(communityName, proteinsSet, "");
-                communities.add(newCommunity);
+        return new ArrayList<>(communities.values());
+    }
+
+    // Louvain/Leiden modularity communities weighted by confidence score; replaces earlier runs' communities
+    public List<Community> findModularityCommunities(double resolution, long seed) {
+        return findModularityCommunities(resolution, seed, CommunityNamer.byRank());
+    }
+
+    public List<Community> findModularityCommunities(double resolution, long seed, CommunityNamer namer) {
+        CsrGraph graph = getCsrGraph();
+        int[] membership = new LouvainCommunityDetector(resolution, seed).detect(graph);
+        return putCommunities(graph, membership, "louvain", namer);
+    }
+
+    // Fast first-pass clustering by asynchronous label propagation; replaces earlier runs' communities
+    public List<Community> findLabelPropagationCommunities(double changeThreshold, long seed) {
+        return findLabelPropagationCommunities(changeThreshold, seed, CommunityNamer.byRank());
+    }
+
+    public List<Community> findLabelPropagationCommunities(double changeThreshold, long seed, CommunityNamer namer) {
+        CsrGraph graph = getCsrGraph();
+        int[] labels = new LabelPropagation(changeThreshold, LABEL_PROPAGATION_MAX_ITERATIONS, seed).detect(graph);
+        return putCommunities(graph, labels, "lpa", namer);
+    }
+
+    // Turns a membership array into communities, largest first, replacing the method's previous run.
+    // Singletons are not modules and are left out.
+    private List<Community> putCommunities(CsrGraph graph, int[] membership, String method, CommunityNamer namer) {
+        String prefix = networkName + "-" + method + "-";
+        Set<String> previous = detectedCommunityIds.computeIfAbsent(method, m -> new HashSet<>());
+        Iterator<Community> existing = communities.values().iterator();
+        while (existing.hasNext()) {
+            Community community = existing.next();
+            if (community.getId().startsWith(prefix) || previous.contains(community.getId())) {
+                existing.remove();
+                changes.communityRemoved(community);
             }
         }
+        previous.clear();
 
-        return new ArrayList<>(communities);
+        int count = 0;
+        for (int c : membership) {
+            count = Math.max(count, c + 1);
+        }
+        int[] start = new int[count + 1];
+        for (int c : membership) {
+            start[c + 1]++;
+        }
+        int[][] groups = new int[count][];
+        for (int c = 0; c < count; c++) {
+            groups[c] = new int[start[c + 1]];
+            start[c + 1] = 0;
+        }
+        for (int v = 0; v < membership.length; v++) {
+            groups[membership[v]][start[membership[v] + 1]++] = v;
+        }
+
+        List<Community> found = new ArrayList<>();
+        for (int[] members : groups) {
+            if (members.length < 2) continue;
+            Community community = toCommunity(members, graph::proteinAt, graph::degree, method, found.size() + 1, namer);
+            communities.put(community.getId(), community);
+            changes.communityChanged(community);
+            previous.add(community.getId());
+            found.add(community);
+        }
+        communitySnapshot = null;
+        return found;
     }
 
-    private List<Protein> findProteinCommunity(Protein protein) {
-        Set<Protein> seenProteins = new HashSet<>();
-        Queue<Protein> queue = new LinkedList<>();
-        queue.add(protein);
-        while (!queue.isEmpty()) {
-            Protein p = queue.poll();
-            seenProteins.add(p);
-            for (Protein neighbor : adjacencyList.getOrDefault(p, Collections.emptyList())) {
-                if (!seenProteins.contains(neighbor)) {
-                    queue.add(neighbor);
-                }
+    private Community toCommunity(int[] members, IntFunction<Protein> proteinAt, IntUnaryOperator degreeOf,
+                                  String method, int rank, CommunityNamer namer) {
+        Set<Protein> proteins = new HashSet<>(members.length * 2);
+        Protein hub = null;
+        int hubDegree = -1;
+        for (int v : members) {
+            Protein protein = proteinAt.apply(v);
+            proteins.add(protein);
+            int degree = degreeOf.applyAsInt(v);
+            if (degree > hubDegree || (degree == hubDegree && protein.getName().compareTo(hub.getName()) < 0)) {
+                hub = protein;
+                hubDegree = degree;
             }
         }
-        return new ArrayList<>(seenProteins);
+        return new Community(uniqueCommunityId(namer.name(networkName, method, rank, proteins, hub), rank), proteins, "");
+    }
+
+    // Communities are keyed by id, so a name that is already taken gets the rank appended (and then a
+    // counter) rather than replacing the community that holds it
+    private String uniqueCommunityId(String id, int rank) {
+        if (!communities.containsKey(id)) {
+            return id;
+        }
+        String unique = id + "-" + rank;
+        for (int n = 2; communities.containsKey(unique); n++) {
+            unique = id + "-" + rank + "-" + n;
+        }
+        return unique;
     }
 
 
@@ -185,12 +915,25 @@ public class PPINetwork {
         this.networkName = networkName;
     }
 
+    // Edits since the network was last loaded or saved
+    public ChangeJournal getChanges() {
+        return changes;
+    }
+
+    // Called once the network matches its saved copy; later edits are journaled against it
+    public void markSaved() {
+        changes.reset(networkName);
+    }
+
     public List<Interaction> getInteractions() {
-        return List.copyOf(interactions);
+        return interactions.snapshot();
     }
 
     public Set<Community> getCommunities() {
-        return Set.copyOf(communities);
+        if (communitySnapshot == null) {
+            communitySnapshot = Collections.unmodifiableSet(new LinkedHashSet<>(communities.values()));
+        }
+        return communitySnapshot;
     }
 
     @Override
@@ -198,9 +941,9 @@ public class PPINetwork {
         StringBuilder sb = new StringBuilder();
         sb.append("=== Network: ").append(networkName).append(" ===\n");
 
-        sb.append("\n» Proteins (").append(networkProteins.size()).append("):\n");
-        for (int i = 0; i <  networkProteins.size(); i++) {
-            Protein p = networkProteins.get(i);
+        sb.append("\n» Proteins (").append(proteinCount).append("):\n");
+        for (Protein p : nodes) {
+            if (p == null) continue;
             sb.append("- ").append(p.getBasicInfo()).append("\n");
         }
 
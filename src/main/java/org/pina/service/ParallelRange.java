@@ -0,0 +1,44 @@
+package org.pina.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits an index range into fork-join leaves of at most `grain` indexes and runs body on each leaf.
+// Tasks only live inside a pool and are never serialized.
+@SuppressWarnings("serial")
+final class ParallelRange extends RecursiveAction {
+
+    interface Body {
+        void run(int from, int to);
+    }
+
+    private final int from;
+    private final int to;
+    private final int grain;
+    private final Body body;
+
+    private ParallelRange(int from, int to, int grain, Body body) {
+        this.from = from;
+        this.to = to;
+        this.grain = grain;
+        this.body = body;
+    }
+
+    static void forEach(ForkJoinPool pool, int from, int to, int grain, Body body) {
+        if (to - from <= grain) {
+            body.run(from, to);
+        } else {
+            pool.invoke(new ParallelRange(from, to, Math.max(1, grain), body));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= grain) {
+            body.run(from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new ParallelRange(from, mid, grain, body), new ParallelRange(mid, to, grain, body));
+    }
+}
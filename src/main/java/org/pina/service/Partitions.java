@@ -0,0 +1,69 @@
+package org.pina.service;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Helpers shared by the community detectors for node orders and community label arrays
+final class Partitions {
+
+    private Partitions() {
+    }
+
+    static int[] identity(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    static int[] shuffled(int n, Random random) {
+        int[] order = identity(n);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    // Renumbers labels densely in order of first appearance; returns the number of distinct labels
+    static int relabel(int[] labels) {
+        int bound = 0;
+        for (int label : labels) {
+            bound = Math.max(bound, label + 1);
+        }
+        int[] map = new int[bound];
+        Arrays.fill(map, -1);
+        int count = 0;
+        for (int i = 0; i < labels.length; i++) {
+            int label = labels[i];
+            if (map[label] < 0) map[label] = count++;
+            labels[i] = map[label];
+        }
+        return count;
+    }
+
+    // Renumbers labels so that community 0 is the largest, ties broken by first appearance
+    static int[] orderBySize(int[] labels) {
+        int count = relabel(labels);
+        int[] size = new int[count];
+        for (int label : labels) {
+            size[label]++;
+        }
+        Integer[] bySize = new Integer[count];
+        for (int c = 0; c < count; c++) {
+            bySize[c] = c;
+        }
+        Arrays.sort(bySize, (a, b) -> size[a] != size[b] ? Integer.compare(size[b], size[a]) : Integer.compare(a, b));
+        int[] rank = new int[count];
+        for (int r = 0; r < count; r++) {
+            rank[bySize[r]] = r;
+        }
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = rank[labels[i]];
+        }
+        return labels;
+    }
+}
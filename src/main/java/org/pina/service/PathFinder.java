@@ -0,0 +1,417 @@
+package org.pina.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Point-to-point path queries on a CSR snapshot. Hop distances use bidirectional BFS; most-confident
+// paths use bidirectional Dijkstra on -log(confidence), so the cheapest path maximises the product of
+// its confidence scores. With landmarks, Dijkstra is guided by ALT lower bounds (distances to and from
+// a few far-apart landmarks through the triangle inequality). Landmarks pay off when paths are long and
+// the graph is sparse; on dense small-world graphs plain bidirectional search already settles few nodes.
+//
+// A node mask and a confidence floor restrict the search to a view of the graph without copying it.
+// Instances are immutable once built and safe to share between threads; search state is per thread.
+public final class PathFinder {
+
+    // Landmarks consulted per query: the ones giving the tightest source-target bound
+    private static final int ACTIVE_LANDMARKS = 4;
+
+    private final CsrGraph graph;
+    private final double[] weights;
+    private final BitSet nodes;
+    private final double minConfidence;
+    private final double[][] landmarkDistance;
+    private final ThreadLocal<Workspace> workspace;
+
+    public PathFinder(CsrGraph graph) {
+        this(graph, 0);
+    }
+
+    public PathFinder(CsrGraph graph, int landmarks) {
+        this(graph, landmarks, null, Double.NEGATIVE_INFINITY);
+    }
+
+    // Only nodes in the mask (all when null) and edges with at least the given confidence are used
+    PathFinder(CsrGraph graph, int landmarks, BitSet nodes, double minConfidence) {
+        if (landmarks < 0) {
+            throw new IllegalArgumentException("Landmark count cannot be negative: " + landmarks);
+        }
+        this.graph = graph;
+        this.weights = graph.weights();
+        this.nodes = nodes;
+        this.minConfidence = minConfidence;
+        int n = graph.nodeCount();
+        workspace = ThreadLocal.withInitial(() -> new Workspace(n));
+        landmarkDistance = selectLandmarks(Math.min(landmarks, n));
+    }
+
+    public CsrGraph graph() {
+        return graph;
+    }
+
+    public int landmarkCount() {
+        return landmarkDistance.length;
+    }
+
+    // Number of interactions on a shortest path, or -1 when the proteins are not connected
+    public int hopDistance(int source, int target) {
+        int[] path = shortestPath(source, target);
+        return path == null ? -1 : path.length - 1;
+    }
+
+    // Fewest-hop path from source to target inclusive, or null when there is none
+    public int[] shortestPath(int source, int target) {
+        if (!contains(source) || !contains(target)) return null;
+        if (source == target) return new int[]{source};
+        Workspace w = workspace.get();
+        w.nextQuery();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+
+        w.visit(w.forward, source, -1, 0);
+        w.visit(w.backward, target, -1, 0);
+        int[] forwardFrontier = {source};
+        int[] backwardFrontier = {target};
+        while (forwardFrontier.length > 0 && backwardFrontier.length > 0) {
+            // Grow whichever side has less work in its next level
+            boolean forward = frontierWork(forwardFrontier, offsets) <= frontierWork(backwardFrontier, offsets);
+            Side side = forward ? w.forward : w.backward;
+            Side other = forward ? w.backward : w.forward;
+            int[] frontier = forward ? forwardFrontier : backwardFrontier;
+
+            int[] next = new int[16];
+            int size = 0;
+            int meeting = -1;
+            int best = Integer.MAX_VALUE;
+            for (int v : frontier) {
+                int depth = (int) side.distance[v];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int u = neighbors[i];
+                    if (!usable(i, u)) continue;
+                    if (!side.seen(w.query, u)) {
+                        w.visit(side, u, v, depth + 1);
+                        if (size == next.length) next = Arrays.copyOf(next, size * 2);
+                        next[size++] = u;
+                    }
+                    // Finish the whole level: the first meeting found need not be the shortest
+                    if (other.seen(w.query, u) && depth + 1 + other.distance[u] < best) {
+                        best = depth + 1 + (int) other.distance[u];
+                        meeting = u;
+                    }
+                }
+            }
+            if (meeting >= 0) {
+                return w.join(meeting);
+            }
+            if (forward) {
+                forwardFrontier = Arrays.copyOf(next, size);
+            } else {
+                backwardFrontier = Arrays.copyOf(next, size);
+            }
+        }
+        return null;
+    }
+
+    // Path maximising the product of confidence scores, or null when there is none
+    public int[] mostConfidentPath(int source, int target) {
+        if (!contains(source) || !contains(target)) return null;
+        if (source == target) return new int[]{source};
+        Workspace w = workspace.get();
+        w.nextQuery();
+        w.source = source;
+        w.target = target;
+        w.chooseLandmarks(landmarkDistance, source, target);
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+
+        // Distances are kept in reduced costs c(u, v) - p(u) + p(v) with the average potential
+        // p = (bound to target - bound to source) / 2, which is consistent for both directions
+        w.visit(w.forward, source, -1, 0);
+        w.visit(w.backward, target, -1, 0);
+        w.forward.heap.push(source, 0);
+        w.backward.heap.push(target, 0);
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (!w.forward.heap.isEmpty() && !w.backward.heap.isEmpty()) {
+            if (w.forward.heap.minKey() + w.backward.heap.minKey() >= best) break;
+            boolean forward = w.forward.heap.size() <= w.backward.heap.size();
+            Side side = forward ? w.forward : w.backward;
+            Side other = forward ? w.backward : w.forward;
+
+            double key = side.heap.minKey();
+            int v = side.heap.pop();
+            if (key > side.distance[v]) continue;
+            double pv = potential(w, v);
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int u = neighbors[i];
+                if (!usable(i, u)) continue;
+                double pu = potential(w, u);
+                double c = cost(weights[i]);
+                double reduced = forward ? c - pv + pu : c + pv - pu;
+                double d = side.distance[v] + Math.max(0, reduced);
+                if (d == Double.POSITIVE_INFINITY) continue;
+                if (!side.seen(w.query, u) || d < side.distance[u]) {
+                    w.visit(side, u, v, d);
+                    side.heap.push(u, d);
+                }
+                if (other.seen(w.query, u) && d + other.distance[u] < best) {
+                    best = d + other.distance[u];
+                    meeting = u;
+                }
+            }
+        }
+        return meeting < 0 ? null : w.join(meeting);
+    }
+
+    private boolean contains(int v) {
+        return nodes == null || nodes.get(v);
+    }
+
+    private boolean usable(int edge, int neighbor) {
+        return weights[edge] >= minConfidence && (nodes == null || nodes.get(neighbor));
+    }
+
+    // Scores are confidences in (0, 1]; a zero score cannot carry a path
+    private static double cost(double weight) {
+        return weight > 0 ? Math.max(0, -Math.log(weight)) : Double.POSITIVE_INFINITY;
+    }
+
+    private static double potential(Workspace w, int v) {
+        if (w.activeCount == 0) return 0;
+        if (w.potentialQuery[v] != w.query) {
+            w.potentialQuery[v] = w.query;
+            double toTarget = 0;
+            double toSource = 0;
+            for (int l = 0; l < w.activeCount; l++) {
+                double[] d = w.active[l];
+                toTarget = Math.max(toTarget, bound(d, v, w.target));
+                toSource = Math.max(toSource, bound(d, v, w.source));
+            }
+            w.potential[v] = (toTarget - toSource) / 2;
+        }
+        return w.potential[v];
+    }
+
+    // Lower bound on the -log(confidence) distance between two nodes from the triangle inequality
+    private static double bound(double[] landmarkDistance, int v, int u) {
+        double dv = landmarkDistance[v];
+        double du = landmarkDistance[u];
+        return dv == Double.POSITIVE_INFINITY || du == Double.POSITIVE_INFINITY ? 0 : Math.abs(dv - du);
+    }
+
+    // Farthest-point selection: each landmark is the node farthest from those chosen so far, preferring
+    // nodes that no landmark reaches yet so that every sizeable component gets one
+    private double[][] selectLandmarks(int count) {
+        int n = graph.nodeCount();
+        double[][] distances = new double[count][];
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int[] offsets = graph.offsets();
+        int next = nodes == null ? 0 : nodes.nextSetBit(0);
+        if (next < 0 || next >= n) return new double[0][];
+        for (int l = 0; l < count; l++) {
+            distances[l] = singleSource(next);
+            int farthest = -1;
+            int unreached = -1;
+            int unreachedDegree = 0;
+            for (int v = 0; v < n; v++) {
+                if (!contains(v)) continue;
+                nearest[v] = Math.min(nearest[v], distances[l][v]);
+                int degree = offsets[v + 1] - offsets[v];
+                if (nearest[v] == Double.POSITIVE_INFINITY) {
+                    if (degree > unreachedDegree) {
+                        unreached = v;
+                        unreachedDegree = degree;
+                    }
+                } else if (farthest < 0 || nearest[v] > nearest[farthest]) {
+                    farthest = v;
+                }
+            }
+            next = unreached >= 0 ? unreached : farthest;
+        }
+        return distances;
+    }
+
+    private double[] singleSource(int source) {
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        double[] distance = new double[graph.nodeCount()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[source] = 0;
+        NodeHeap heap = new NodeHeap();
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            double key = heap.minKey();
+            int v = heap.pop();
+            if (key > distance[v]) continue;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int u = neighbors[i];
+                if (!usable(i, u)) continue;
+                double d = key + cost(weights[i]);
+                if (d < distance[u]) {
+                    distance[u] = d;
+                    heap.push(u, d);
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static long frontierWork(int[] frontier, int[] offsets) {
+        long work = 0;
+        for (int v : frontier) {
+            work += offsets[v + 1] - offsets[v];
+        }
+        return work;
+    }
+
+    // One search direction. Entries are valid only when stamped with the current query, so nothing
+    // needs clearing between queries.
+    private static final class Side {
+        final int[] stamp;
+        final double[] distance;
+        final int[] parent;
+        final NodeHeap heap = new NodeHeap();
+
+        Side(int n) {
+            stamp = new int[n];
+            distance = new double[n];
+            parent = new int[n];
+        }
+
+        boolean seen(int query, int v) {
+            return stamp[v] == query;
+        }
+    }
+
+    private static final class Workspace {
+        final Side forward;
+        final Side backward;
+        final int[] potentialQuery;
+        final double[] potential;
+        final double[][] active = new double[ACTIVE_LANDMARKS][];
+        int activeCount;
+        int query;
+        int source;
+        int target;
+
+        Workspace(int n) {
+            forward = new Side(n);
+            backward = new Side(n);
+            potentialQuery = new int[n];
+            potential = new double[n];
+        }
+
+        void nextQuery() {
+            if (++query == Integer.MAX_VALUE) {
+                Arrays.fill(forward.stamp, 0);
+                Arrays.fill(backward.stamp, 0);
+                Arrays.fill(potentialQuery, 0);
+                query = 1;
+            }
+            forward.heap.clear();
+            backward.heap.clear();
+        }
+
+        // Keeps the landmarks with the largest source-target bounds, in insertion-sorted order
+        void chooseLandmarks(double[][] landmarkDistance, int source, int target) {
+            double[] bounds = new double[ACTIVE_LANDMARKS];
+            activeCount = 0;
+            for (double[] d : landmarkDistance) {
+                double b = bound(d, source, target);
+                if (b == 0 || (activeCount == ACTIVE_LANDMARKS && b <= bounds[activeCount - 1])) continue;
+                int i = Math.min(activeCount, ACTIVE_LANDMARKS - 1);
+                if (activeCount < ACTIVE_LANDMARKS) activeCount++;
+                while (i > 0 && bounds[i - 1] < b) {
+                    bounds[i] = bounds[i - 1];
+                    active[i] = active[i - 1];
+                    i--;
+                }
+                bounds[i] = b;
+                active[i] = d;
+            }
+        }
+
+        void visit(Side side, int v, int parent, double distance) {
+            side.stamp[v] = query;
+            side.parent[v] = parent;
+            side.distance[v] = distance;
+        }
+
+        // Source-to-meeting half from the forward parents, meeting-to-target half from the backward ones
+        int[] join(int meeting) {
+            int length = 0;
+            for (int v = meeting; v >= 0; v = forward.parent[v]) length++;
+            for (int v = backward.parent[meeting]; v >= 0; v = backward.parent[v]) length++;
+            int[] path = new int[length];
+            int i = 0;
+            for (int v = meeting; v >= 0; v = forward.parent[v]) path[i++] = v;
+            for (int a = 0, b = i - 1; a < b; a++, b--) {
+                int tmp = path[a];
+                path[a] = path[b];
+                path[b] = tmp;
+            }
+            for (int v = backward.parent[meeting]; v >= 0; v = backward.parent[v]) path[i++] = v;
+            return path;
+        }
+    }
+
+    // Binary min-heap of (node, key) with lazy deletion: stale entries are skipped by the caller
+    private static final class NodeHeap {
+        private int[] nodes = new int[16];
+        private double[] keys = new double[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        double minKey() {
+            return keys[0];
+        }
+
+        void push(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int node = nodes[--size];
+            double key = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.pina.service;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Growable array handing out O(1) read-only snapshots. A snapshot is a view of the backing array up to
+// the size it was taken at, so appends (which only write past that size) share the array with it; any
+// other write first copies the array if a snapshot may still be looking at it.
+final class SnapshotArray<T> {
+
+    private Object[] elements;
+    private int size;
+    private boolean shared;
+    private List<T> snapshot;
+
+    SnapshotArray(int capacity) {
+        elements = new Object[Math.max(8, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        return (T) elements[index];
+    }
+
+    void add(T element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+            shared = false;
+        }
+        elements[size++] = element;
+        snapshot = null;
+    }
+
+    void set(int index, T element) {
+        unshare();
+        elements[index] = element;
+    }
+
+    void removeLast() {
+        unshare();
+        elements[--size] = null;
+    }
+
+    // The current contents; stays unchanged when the array is modified afterwards
+    List<T> snapshot() {
+        if (snapshot == null) {
+            snapshot = new View<>(elements, size);
+            shared = true;
+        }
+        return snapshot;
+    }
+
+    private void unshare() {
+        if (shared) {
+            elements = elements.clone();
+            shared = false;
+        }
+        snapshot = null;
+    }
+
+    private static final class View<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        View(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
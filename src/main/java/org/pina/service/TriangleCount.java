@@ -0,0 +1,155 @@
+package org.pina.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+// Triangle counts and clustering coefficients. Every edge is oriented from the lower to the higher
+// (degree, index) endpoint, which leaves each node at most sqrt(2E) out-neighbours; a triangle is then
+// found exactly once, at its lowest node, by merging two sorted out-neighbour rows. Nodes are split
+// across the fork-join pool and each worker counts into its own array.
+public final class TriangleCount {
+
+    private static final int NODES_PER_TASK = 256;
+
+    private final CsrGraph graph;
+    private final long[] triangles;
+    private final long totalTriangles;
+
+    private TriangleCount(CsrGraph graph, long[] triangles, long totalTriangles) {
+        this.graph = graph;
+        this.triangles = triangles;
+        this.totalTriangles = totalTriangles;
+    }
+
+    public static TriangleCount compute(CsrGraph graph) {
+        return compute(graph, ForkJoinPool.commonPool());
+    }
+
+    public static TriangleCount compute(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        int[][] oriented = orient(graph, pool);
+        int[] outOffsets = oriented[0];
+        int[] out = oriented[1];
+
+        Queue<long[]> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<long[]> local = ThreadLocal.withInitial(() -> {
+            long[] counts = new long[n];
+            partials.add(counts);
+            return counts;
+        });
+        ParallelRange.forEach(pool, 0, n, NODES_PER_TASK, (from, to) -> {
+            long[] counts = local.get();
+            for (int v = from; v < to; v++) {
+                for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                    int u = out[i];
+                    // Merge the sorted rows of v and u; every common out-neighbour closes a triangle
+                    int a = outOffsets[v];
+                    int aEnd = outOffsets[v + 1];
+                    int b = outOffsets[u];
+                    int bEnd = outOffsets[u + 1];
+                    while (a < aEnd && b < bEnd) {
+                        int x = out[a];
+                        int y = out[b];
+                        if (x < y) {
+                            a++;
+                        } else if (x > y) {
+                            b++;
+                        } else {
+                            counts[v]++;
+                            counts[u]++;
+                            counts[x]++;
+                            a++;
+                            b++;
+                        }
+                    }
+                }
+            }
+        });
+
+        long[] triangles = new long[n];
+        for (long[] counts : partials) {
+            for (int v = 0; v < n; v++) {
+                triangles[v] += counts[v];
+            }
+        }
+        long total = 0;
+        for (long t : triangles) {
+            total += t;
+        }
+        return new TriangleCount(graph, triangles, total / 3);
+    }
+
+    // Out-neighbour rows of the orientation as {offsets, targets}. Rows keep the CSR order, so they stay
+    // sorted by index for merging.
+    static int[][] orient(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        int[] outOffsets = new int[n + 1];
+        ParallelRange.forEach(pool, 0, n, NODES_PER_TASK * 4, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                int count = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    if (precedes(offsets, v, neighbors[i])) count++;
+                }
+                outOffsets[v + 1] = count;
+            }
+        });
+        for (int v = 0; v < n; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+        }
+        int[] out = new int[outOffsets[n]];
+        ParallelRange.forEach(pool, 0, n, NODES_PER_TASK * 4, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                int next = outOffsets[v];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    if (precedes(offsets, v, neighbors[i])) out[next++] = neighbors[i];
+                }
+            }
+        });
+        return new int[][]{outOffsets, out};
+    }
+
+    // Orientation order: lower degree first, ties by index
+    private static boolean precedes(int[] offsets, int v, int u) {
+        int dv = offsets[v + 1] - offsets[v];
+        int du = offsets[u + 1] - offsets[u];
+        return dv < du || (dv == du && v < u);
+    }
+
+    public long triangles(int v) {
+        return triangles[v];
+    }
+
+    public long totalTriangles() {
+        return totalTriangles;
+    }
+
+    // Share of a node's neighbour pairs that interact with each other; 0 below two neighbours
+    public double localClustering(int v) {
+        long d = graph.degree(v);
+        return d < 2 ? 0 : 2.0 * triangles[v] / (d * (d - 1));
+    }
+
+    // Mean local clustering over all nodes
+    public double averageClustering() {
+        int n = graph.nodeCount();
+        if (n == 0) return 0;
+        double sum = 0;
+        for (int v = 0; v < n; v++) {
+            sum += localClustering(v);
+        }
+        return sum / n;
+    }
+
+    // Global transitivity: 3 * triangles / connected triples
+    public double transitivity() {
+        double triples = 0;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            long d = graph.degree(v);
+            triples += d * (d - 1) / 2.0;
+        }
+        return triples == 0 ? 0 : 3.0 * totalTriangles / triples;
+    }
+}
@@ -0,0 +1,32 @@
+package org.pina.service;
+
+// Sparse accumulator of edge weight per community, reset in O(touched)
+final class WeightAccumulator {
+    final double[] weightTo;
+    final boolean[] seen;
+    final int[] touched;
+    int size;
+
+    WeightAccumulator(int n) {
+        weightTo = new double[n];
+        seen = new boolean[n];
+        touched = new int[n];
+    }
+
+    void add(int c, double w) {
+        if (!seen[c]) {
+            seen[c] = true;
+            touched[size++] = c;
+        }
+        weightTo[c] += w;
+    }
+
+    void reset() {
+        for (int t = 0; t < size; t++) {
+            int c = touched[t];
+            seen[c] = false;
+            weightTo[c] = 0;
+        }
+        size = 0;
+    }
+}
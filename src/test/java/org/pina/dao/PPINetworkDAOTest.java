@@ -0,0 +1,214 @@
+package org.pina.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pina.model.Community;
+import org.pina.model.HumanProtein;
+import org.pina.model.Interaction;
+import org.pina.model.Protein;
+import org.pina.service.ChangeJournal;
+import org.pina.service.PPINetwork;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PPINetworkDAOTest {
+
+    @TempDir
+    Path directory;
+
+    private Connection connection;
+    private PPINetworkDAO dao;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite:" + directory.resolve("test.sqlite"));
+        SchemaMigrations.migrate(connection);
+        // A small batch size so saves span several batches
+        dao = new PPINetworkDAO(connection, 7);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        connection.close();
+    }
+
+    private static List<Protein> proteins(int count) {
+        List<Protein> proteins = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            proteins.add(i % 2 == 0
+                    ? new HumanProtein("P" + i, "protein" + i, "", new HashSet<>(), "liver")
+                    : new Protein("P" + i, "protein" + i, "", new HashSet<>()));
+        }
+        return proteins;
+    }
+
+    private static String pair(Interaction interaction) {
+        String a = interaction.getProtein1().getUniprotId();
+        String b = interaction.getProtein2().getUniprotId();
+        return (a.compareTo(b) <= 0 ? a + "|" + b : b + "|" + a) + ":" + interaction.getConfidenceScore();
+    }
+
+    private int linkCount(String networkName) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM Network_Interaction ni JOIN Network n ON n.id = ni.network_id WHERE n.name = ?";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, networkName);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    // The saved copy must hold exactly the network's proteins, interactions with scores, and communities
+    private void assertSavedAsIs(PPINetwork network) throws SQLException {
+        PPINetwork loaded = dao.loadNetwork(network.getNetworkName());
+        assertNotNull(loaded);
+
+        Map<String, Class<?>> expectedProteins = new TreeMap<>();
+        Map<String, Class<?>> actualProteins = new TreeMap<>();
+        for (Protein p : network.getProteins()) expectedProteins.put(p.getUniprotId(), p.getClass());
+        for (Protein p : loaded.getProteins()) actualProteins.put(p.getUniprotId(), p.getClass());
+        assertEquals(expectedProteins, actualProteins);
+
+        Set<String> expectedInteractions = new TreeSet<>();
+        Set<String> actualInteractions = new TreeSet<>();
+        for (Interaction i : network.getInteractions()) expectedInteractions.add(pair(i));
+        for (Interaction i : loaded.getInteractions()) actualInteractions.add(pair(i));
+        assertEquals(expectedInteractions, actualInteractions);
+        assertEquals(network.getInteractionCount(), linkCount(network.getNetworkName()));
+
+        // Communities keep members that later left the network; only current members are loaded back
+        Map<String, Set<String>> expectedCommunities = new TreeMap<>();
+        Map<String, Set<String>> actualCommunities = new TreeMap<>();
+        for (Community c : network.getCommunities()) {
+            Set<String> ids = new TreeSet<>();
+            for (Protein p : c.getProteins()) {
+                if (expectedProteins.containsKey(p.getUniprotId())) ids.add(p.getUniprotId());
+            }
+            expectedCommunities.put(c.getId(), ids);
+        }
+        for (Community c : loaded.getCommunities()) {
+            Set<String> ids = new TreeSet<>();
+            for (Protein p : c.getProteins()) ids.add(p.getUniprotId());
+            actualCommunities.put(c.getId(), ids);
+        }
+        assertEquals(expectedCommunities, actualCommunities);
+
+        assertTrue(loaded.getChanges().isSavedAs(network.getNetworkName()));
+        assertTrue(loaded.getChanges().isEmpty());
+    }
+
+    @Test
+    void deltaSavesReloadToTheEditedNetwork() throws SQLException {
+        Random random = new Random(71);
+        List<Protein> pool = proteins(120);
+        PPINetwork network = new PPINetwork("journal");
+        for (int i = 0; i < 60; i++) {
+            network.addProtein(pool.get(i));
+        }
+        for (int i = 0; i < 150; i++) {
+            List<Protein> live = network.getProteins();
+            network.addInteraction(live.get(random.nextInt(live.size())), live.get(random.nextInt(live.size())),
+                    random.nextInt(4) / 4.0);
+        }
+        assertFalse(network.getChanges().isSavedAs("journal"));
+        dao.saveNetwork(network);
+        assertTrue(network.getChanges().isSavedAs("journal"));
+        assertTrue(network.getChanges().isEmpty());
+        assertSavedAsIs(network);
+
+        // Removed proteins never come back: a reload drops them from community member sets for good
+        Set<Protein> removed = new HashSet<>();
+        for (int round = 0; round < 30; round++) {
+            for (int edit = 1 + random.nextInt(15); edit > 0; edit--) {
+                List<Protein> live = network.getProteins();
+                switch (random.nextInt(7)) {
+                    case 0 -> {
+                        Protein protein = pool.get(random.nextInt(pool.size()));
+                        if (!removed.contains(protein)) network.addProtein(protein);
+                    }
+                    case 1 -> {
+                        if (live.size() > 5) {
+                            Protein protein = live.get(random.nextInt(live.size()));
+                            network.removeProtein(protein);
+                            removed.add(protein);
+                        }
+                    }
+                    case 2, 3 -> network.addInteraction(live.get(random.nextInt(live.size())),
+                            live.get(random.nextInt(live.size())), random.nextInt(4) / 4.0);
+                    case 4 -> {
+                        if (network.getInteractionCount() > 0) {
+                            Interaction i = network.getInteractions().get(random.nextInt(network.getInteractionCount()));
+                            assertTrue(network.removeInteraction(i.getProtein2(), i.getProtein1()));
+                        }
+                    }
+                    case 5 -> network.findLabelPropagationCommunities(0.0, random.nextLong());
+                    default -> network.findCommunities();
+                }
+            }
+            dao.saveNetwork(network);
+            assertTrue(network.getChanges().isEmpty());
+            assertSavedAsIs(network);
+            // Continue on a freshly loaded copy now and then, so its journal is exercised too
+            if (round % 10 == 9) {
+                network = dao.loadNetwork("journal");
+            }
+        }
+    }
+
+    @Test
+    void journalKeepsOnlyTheNetEffect() throws SQLException {
+        List<Protein> pool = proteins(4);
+        PPINetwork network = new PPINetwork("net");
+        for (Protein p : pool.subList(0, 3)) {
+            network.addProtein(p);
+        }
+        network.addInteraction(pool.get(0), pool.get(1), 0.5);
+        dao.saveNetwork(network);
+
+        // Rescored and then removed, or added and then removed again: nothing is left to write, only to unlink
+        network.addInteraction(pool.get(1), pool.get(0), 0.9);
+        network.removeInteraction(pool.get(0), pool.get(1));
+        network.addInteraction(pool.get(1), pool.get(2), 0.7);
+        network.removeInteraction(pool.get(2), pool.get(1));
+        network.addProtein(pool.get(3));
+        network.removeProtein(pool.get(3));
+        ChangeJournal changes = network.getChanges();
+        assertEquals(2, changes.getRemovedInteractions().size());
+        assertTrue(changes.getChangedInteractions().isEmpty());
+        assertTrue(changes.getAddedProteins().isEmpty());
+        assertEquals(List.of(pool.get(3)), List.copyOf(changes.getRemovedProteins()));
+
+        dao.saveNetwork(network);
+        assertSavedAsIs(network);
+        assertEquals(0, linkCount("net"));
+    }
+
+    @Test
+    void renamedNetworkIsSavedInFull() throws SQLException {
+        List<Protein> pool = proteins(10);
+        PPINetwork network = new PPINetwork("original");
+        for (Protein p : pool) {
+            network.addProtein(p);
+        }
+        for (int i = 1; i < pool.size(); i++) {
+            network.addInteraction(pool.get(i - 1), pool.get(i), 0.1 * i);
+        }
+        dao.saveNetwork(network);
+
+        // The journal only covers the copy saved under the old name
+        network.setNetworkName("copy");
+        assertFalse(network.getChanges().isSavedAs("copy"));
+        network.addInteraction(pool.get(0), pool.get(9), 0.4);
+        dao.saveNetwork(network);
+        assertSavedAsIs(network);
+        assertEquals(9, linkCount("original"));
+        assertEquals(10, linkCount("copy"));
+    }
+}
@@ -0,0 +1,135 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+import org.pina.model.Interaction;
+import org.pina.model.Protein;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPPINetworkTest {
+
+    private static final int PROTEINS = 2_000;
+    private static final int WRITERS = 8;
+    private static final int EDGES_PER_WRITER = 5_000;
+
+    // Depends on the pair only, so the final score does not depend on which writer wins
+    private static double score(int a, int b) {
+        return ((Math.min(a, b) * 31 + Math.max(a, b)) % 10) / 10.0;
+    }
+
+    @Test
+    void concurrentWritersMatchSequentialNetwork() throws Exception {
+        Protein[] proteins = new Protein[PROTEINS];
+        for (int i = 0; i < PROTEINS; i++) {
+            proteins[i] = new Protein("P" + i, "protein" + i, "", Set.of());
+        }
+        // Writers overlap on proteins and on some pairs, like parallel fetches of neighbouring seeds
+        int[][][] work = new int[WRITERS][EDGES_PER_WRITER][2];
+        Random random = new Random(3);
+        for (int[][] edges : work) {
+            for (int[] edge : edges) {
+                edge[0] = random.nextInt(PROTEINS);
+                edge[1] = random.nextInt(PROTEINS / 10);
+            }
+        }
+
+        PPINetwork expected = new PPINetwork("stress");
+        for (Protein protein : proteins) {
+            expected.addProtein(protein);
+        }
+        for (int[][] edges : work) {
+            for (int[] edge : edges) {
+                expected.addInteraction(proteins[edge[0]], proteins[edge[1]], score(edge[0], edge[1]));
+            }
+        }
+
+        ConcurrentPPINetwork network = new ConcurrentPPINetwork("stress", 16);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int[][] edges = work[w];
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int[] edge : edges) {
+                        network.addProtein(proteins[edge[0]]);
+                        network.addProtein(proteins[edge[1]]);
+                        network.addInteraction(proteins[edge[0]], proteins[edge[1]], score(edge[0], edge[1]));
+                    }
+                    return null;
+                }));
+            }
+            // Snapshots taken mid-run must hold whole operations only and never shrink
+            Future<Integer> snapshots = executor.submit(() -> {
+                start.await();
+                int taken = 0;
+                int lastInteractions = 0;
+                while (writing.get()) {
+                    PPINetwork snapshot = network.snapshot();
+                    assertTrue(snapshot.getInteractionCount() >= lastInteractions);
+                    lastInteractions = snapshot.getInteractionCount();
+                    for (Interaction interaction : snapshot.getInteractions()) {
+                        Interaction full = expected.findInteraction(interaction.getProtein1(), interaction.getProtein2());
+                        assertNotNull(full);
+                        assertEquals(full.getConfidenceScore(), interaction.getConfidenceScore());
+                    }
+                    taken++;
+                }
+                return taken;
+            });
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            assertTrue(snapshots.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        // Proteins that never appeared in an edge were not added by the writers
+        for (Protein protein : proteins) {
+            network.addProtein(protein);
+        }
+        PPINetwork actual = network.snapshot();
+        assertEquals(expected.getProteinCount(), actual.getProteinCount());
+        assertEquals(new HashSet<>(expected.getProteins()), new HashSet<>(actual.getProteins()));
+        assertEquals(expected.getInteractionCount(), actual.getInteractionCount());
+        assertEquals(expected.getInteractionCount(), network.getInteractionCount());
+        for (Interaction interaction : expected.getInteractions()) {
+            Interaction found = actual.findInteraction(interaction.getProtein1(), interaction.getProtein2());
+            assertNotNull(found);
+            assertEquals(interaction.getConfidenceScore(), found.getConfidenceScore());
+        }
+        assertEquals(expected.getComponentCount(), actual.getComponentCount());
+    }
+
+    @Test
+    void copyOfNetworkSnapshotsBackToSameContent() {
+        PPINetwork base = new PPINetwork("copy");
+        Protein a = new Protein("A", "a", "", Set.of());
+        Protein b = new Protein("B", "b", "", Set.of());
+        Protein c = new Protein("C", "c", "", Set.of());
+        base.addProtein(a);
+        base.addProtein(b);
+        base.addProtein(c);
+        base.addInteraction(a, b, 0.4);
+        base.addInteraction(b, c, 0.6);
+
+        ConcurrentPPINetwork network = new ConcurrentPPINetwork(base);
+        assertFalse(network.addProtein(new Protein("a", "other", "", Set.of())));
+        network.addInteraction(a, b, 0.9);
+        PPINetwork snapshot = network.snapshot();
+        assertEquals(base.getProteins(), snapshot.getProteins());
+        assertEquals(2, snapshot.getInteractionCount());
+        assertEquals(0.9, snapshot.findInteraction(b, a).getConfidenceScore());
+        assertEquals(0.6, snapshot.findInteraction(c, b).getConfidenceScore());
+    }
+}
@@ -0,0 +1,77 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+import org.pina.model.Protein;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectedComponentsTest {
+
+    private static CsrGraph randomGraph(int n, int edges, long seed) {
+        Random random = new Random(seed);
+        Protein[] proteins = new Protein[n];
+        for (int i = 0; i < n; i++) {
+            proteins[i] = new Protein("P" + i, "protein" + i, "", Set.of());
+        }
+        int[] source = new int[edges];
+        int[] target = new int[edges];
+        double[] score = new double[edges];
+        for (int e = 0; e < edges; e++) {
+            source[e] = random.nextInt(n);
+            do {
+                target[e] = random.nextInt(n);
+            } while (target[e] == source[e]);
+            score[e] = 1.0;
+        }
+        return CsrGraph.fromEdges(proteins, source, target, score, edges);
+    }
+
+    // Component ids by BFS, numbered in order of their smallest node
+    private static int[] bfsComponents(CsrGraph graph) {
+        int[] component = new int[graph.nodeCount()];
+        Arrays.fill(component, -1);
+        int count = 0;
+        for (int start = 0; start < graph.nodeCount(); start++) {
+            if (component[start] >= 0) continue;
+            Deque<Integer> queue = new ArrayDeque<>(List.of(start));
+            component[start] = count;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                for (int i = 0; i < graph.degree(v); i++) {
+                    int u = graph.neighbor(v, i);
+                    if (component[u] < 0) {
+                        component[u] = count;
+                        queue.add(u);
+                    }
+                }
+            }
+            count++;
+        }
+        return component;
+    }
+
+    @Test
+    void sequentialUnionFindMatchesBfs() {
+        CsrGraph graph = randomGraph(500, 300, 1);
+        ConnectedComponents components = ConnectedComponents.compute(graph);
+        assertArrayEquals(bfsComponents(graph), components.componentIds());
+    }
+
+    @Test
+    void parallelUnionFindMatchesBfs() {
+        // Enough edges to split the work into several tasks
+        CsrGraph graph = randomGraph(60_000, 40_000, 2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ConnectedComponents components = ConnectedComponents.compute(graph, pool);
+            int[] expected = bfsComponents(graph);
+            assertArrayEquals(expected, components.componentIds());
+            assertEquals(Arrays.stream(expected).max().orElse(-1) + 1, components.componentCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
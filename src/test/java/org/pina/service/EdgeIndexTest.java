@@ -0,0 +1,90 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeIndexTest {
+
+    private static final int NODES = 40;
+
+    private static void assertMatches(EdgeIndex index, Map<Long, Integer> expected) {
+        assertEquals(expected.size(), index.size());
+        for (int u = 0; u < NODES; u++) {
+            for (int v = 0; v < NODES; v++) {
+                Integer value = expected.get(EdgeIndex.key(u, v));
+                assertEquals(value == null ? -1 : value, index.get(u, v), u + "-" + v);
+            }
+        }
+    }
+
+    @Test
+    void randomEditsMatchHashMap() {
+        Random random = new Random(11);
+        // Small table and key space, so deletions keep landing inside long probe chains
+        EdgeIndex index = new EdgeIndex();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int u = random.nextInt(NODES);
+            int v = random.nextInt(NODES);
+            Integer previous;
+            int actual;
+            if (random.nextInt(5) < 3) {
+                int value = random.nextInt(1000);
+                previous = expected.put(EdgeIndex.key(u, v), value);
+                actual = index.put(u, v, value);
+            } else {
+                previous = expected.remove(EdgeIndex.key(v, u));
+                actual = index.remove(v, u);
+            }
+            assertEquals(previous == null ? -1 : previous, actual);
+            if (step % 97 == 0) {
+                assertMatches(index, expected);
+            }
+        }
+        assertMatches(index, expected);
+    }
+
+    @Test
+    void removingEveryPairLeavesAnEmptyIndex() {
+        EdgeIndex index = new EdgeIndex(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        int value = 0;
+        for (int u = 0; u < NODES; u++) {
+            for (int v = u; v < NODES; v++) {
+                assertEquals(-1, index.put(u, v, value));
+                expected.put(EdgeIndex.key(u, v), value++);
+            }
+        }
+        assertMatches(index, expected);
+
+        // Remove in an order unrelated to insertion so gaps open up mid-chain
+        Random random = new Random(5);
+        Long[] keys = expected.keySet().toArray(new Long[0]);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Long t = keys[i];
+            keys[i] = keys[j];
+            keys[j] = t;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int u = (int) (keys[i] >>> 32);
+            int v = (int) (long) keys[i];
+            assertEquals(expected.remove(keys[i]), index.remove(u, v));
+            if (i % 50 == 0) {
+                assertMatches(index, expected);
+            }
+        }
+        assertEquals(0, index.size());
+        assertMatches(index, expected);
+
+        index.put(3, 1, 7);
+        index.clear();
+        assertEquals(-1, index.get(1, 3));
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphletCountTest {
+
+    // Orbits of the induced graphlets touching each node, by enumerating every 3- and 4-node subset
+    private static long[][] bruteForceOrbits(boolean[][] adjacency, long[] graphlets) {
+        int n = adjacency.length;
+        long[][] orbits = new long[n][GraphletCount.ORBITS];
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                if (adjacency[a][b]) {
+                    orbits[a][0]++;
+                    orbits[b][0]++;
+                    graphlets[0]++;
+                }
+                for (int c = b + 1; c < n; c++) {
+                    classify(adjacency, new int[]{a, b, c}, orbits, graphlets);
+                    for (int d = c + 1; d < n; d++) {
+                        classify(adjacency, new int[]{a, b, c, d}, orbits, graphlets);
+                    }
+                }
+            }
+        }
+        return orbits;
+    }
+
+    private static void classify(boolean[][] adjacency, int[] nodes, long[][] orbits, long[] graphlets) {
+        int k = nodes.length;
+        int[] degree = new int[k];
+        int edges = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                if (adjacency[nodes[i]][nodes[j]]) {
+                    degree[i]++;
+                    degree[j]++;
+                    edges++;
+                }
+            }
+        }
+        // Induced subgraphs on three or four nodes are connected exactly when no node is isolated and,
+        // for four nodes, they are not two disjoint edges
+        for (int d : degree) {
+            if (d == 0) return;
+        }
+        if (k == 4 && edges == 2) return;
+        int maxDegree = Arrays.stream(degree).max().getAsInt();
+
+        int graphlet;
+        int[] orbitByDegree; // orbit of a node with degree 1, 2, 3 inside the graphlet
+        if (k == 3) {
+            graphlet = edges == 2 ? 1 : 2;
+            orbitByDegree = edges == 2 ? new int[]{-1, 1, 2, -1} : new int[]{-1, -1, 3, -1};
+        } else if (edges == 3) {
+            graphlet = maxDegree == 3 ? 4 : 3;
+            orbitByDegree = maxDegree == 3 ? new int[]{-1, 6, -1, 7} : new int[]{-1, 4, 5, -1};
+        } else if (edges == 4) {
+            graphlet = maxDegree == 2 ? 5 : 6;
+            orbitByDegree = maxDegree == 2 ? new int[]{-1, -1, 8, -1} : new int[]{-1, 9, 10, 11};
+        } else if (edges == 5) {
+            graphlet = 7;
+            orbitByDegree = new int[]{-1, -1, 12, 13};
+        } else {
+            graphlet = 8;
+            orbitByDegree = new int[]{-1, -1, -1, 14};
+        }
+        graphlets[graphlet]++;
+        for (int i = 0; i < k; i++) {
+            orbits[nodes[i]][orbitByDegree[degree[i]]]++;
+        }
+    }
+
+    @Test
+    void smallGraphsMatchBruteForce() {
+        Random random = new Random(41);
+        for (int round = 0; round < 150; round++) {
+            int n = 1 + random.nextInt(14);
+            boolean[][] adjacency = new boolean[n][n];
+            CsrGraph graph = TriangleCountTest.randomGraph(n, random.nextDouble(), random, adjacency);
+            GraphletCount count = GraphletCount.compute(graph);
+
+            long[] graphlets = new long[GraphletCount.GRAPHLETS];
+            long[][] orbits = bruteForceOrbits(adjacency, graphlets);
+            for (int v = 0; v < n; v++) {
+                assertArrayEquals(orbits[v], count.graphletDegreeVector(v), "round " + round + " node " + v);
+            }
+            for (int g = 0; g < GraphletCount.GRAPHLETS; g++) {
+                assertEquals(graphlets[g], count.graphletCount(g), GraphletCount.graphletName(g));
+            }
+        }
+    }
+
+    @Test
+    void parallelCountMatchesSequential() {
+        Random random = new Random(42);
+        int n = 1500;
+        CsrGraph graph = TriangleCountTest.randomGraph(n, 0.01, random, new boolean[n][n]);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            GraphletCount expected = GraphletCount.compute(graph, single);
+            GraphletCount actual = GraphletCount.compute(graph, parallel);
+            for (int v = 0; v < n; v++) {
+                assertArrayEquals(expected.graphletDegreeVector(v), actual.graphletDegreeVector(v), "node " + v);
+            }
+            for (int g = 0; g < GraphletCount.GRAPHLETS; g++) {
+                assertEquals(expected.graphletCount(g), actual.graphletCount(g));
+            }
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelPropagationTest {
+
+    @Test
+    void sameSeedOnOneWorkerGivesSameLabels() {
+        CsrGraph graph = LouvainCommunityDetectorTest.plantedPartition(20, 50, 0.2, 0.002, new Random(61));
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            int[] first = new LabelPropagation(0.001, 100, 9, single).detect(graph);
+            assertArrayEquals(first, new LabelPropagation(0.001, 100, 9, single).detect(graph));
+            LouvainCommunityDetectorTest.assertOrderedBySize(first);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void recoversWellSeparatedGroupsOnAnyPool() {
+        CsrGraph graph = LouvainCommunityDetectorTest.plantedPartition(10, 30, 0.9, 0.001, new Random(62));
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            int[] labels = new LabelPropagation(0, 100, 3, parallel).detect(graph);
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                for (int u = 0; u < graph.nodeCount(); u++) {
+                    assertEquals(u / 30 == v / 30, labels[u] == labels[v], u + " and " + v);
+                }
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void stopsAfterIterationCap() {
+        CsrGraph graph = LouvainCommunityDetectorTest.plantedPartition(5, 20, 0.5, 0.05, new Random(63));
+        // A single sweep cannot settle a random graph, but must still return dense labels by size
+        int[] labels = new LabelPropagation(0, 1, 1).detect(graph);
+        assertEquals(graph.nodeCount(), labels.length);
+        LouvainCommunityDetectorTest.assertOrderedBySize(labels);
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new LabelPropagation(1, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LabelPropagation(-0.1, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LabelPropagation(0.01, 0, 1));
+    }
+}
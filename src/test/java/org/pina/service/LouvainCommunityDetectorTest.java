@@ -0,0 +1,127 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+import org.pina.model.Protein;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LouvainCommunityDetectorTest {
+
+    // groups dense groups of the given size, sparsely linked to each other
+    static CsrGraph plantedPartition(int groups, int size, double inside, double outside, Random random) {
+        int n = groups * size;
+        Protein[] proteins = new Protein[n];
+        for (int i = 0; i < n; i++) {
+            proteins[i] = new Protein("P" + i, "protein" + i, "", Set.of());
+        }
+        List<int[]> edges = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            for (int v = u + 1; v < n; v++) {
+                if (random.nextDouble() < (u / size == v / size ? inside : outside)) {
+                    edges.add(new int[]{u, v});
+                }
+            }
+        }
+        int[] source = new int[edges.size()];
+        int[] target = new int[edges.size()];
+        double[] score = new double[edges.size()];
+        for (int e = 0; e < edges.size(); e++) {
+            source[e] = edges.get(e)[0];
+            target[e] = edges.get(e)[1];
+            score[e] = 0.2 + 0.8 * random.nextDouble();
+        }
+        return CsrGraph.fromEdges(proteins, source, target, score, edges.size());
+    }
+
+    // Every community must induce a connected subgraph
+    static void assertConnectedCommunities(CsrGraph graph, int[] membership) {
+        int n = graph.nodeCount();
+        boolean[] seen = new boolean[n];
+        Set<Integer> started = new HashSet<>();
+        for (int v = 0; v < n; v++) {
+            if (seen[v]) continue;
+            assertTrue(started.add(membership[v]), "community " + membership[v] + " is split");
+            ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(v));
+            seen[v] = true;
+            while (!queue.isEmpty()) {
+                int x = queue.poll();
+                for (int i = 0; i < graph.degree(x); i++) {
+                    int y = graph.neighbor(x, i);
+                    if (!seen[y] && membership[y] == membership[x]) {
+                        seen[y] = true;
+                        queue.add(y);
+                    }
+                }
+            }
+        }
+    }
+
+    static void assertOrderedBySize(int[] membership) {
+        int count = Arrays.stream(membership).max().orElse(-1) + 1;
+        int[] size = new int[count];
+        for (int c : membership) {
+            size[c]++;
+        }
+        for (int c = 1; c < count; c++) {
+            assertTrue(size[c - 1] >= size[c]);
+            assertTrue(size[c] > 0);
+        }
+    }
+
+    @Test
+    void sameSeedGivesSameCommunitiesOnAnyPool() {
+        // Large enough for moves to be evaluated in parallel batches
+        CsrGraph graph = plantedPartition(30, 100, 0.08, 0.001, new Random(51));
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            int[] expected = new LouvainCommunityDetector(1.0, 7, single).detect(graph);
+            assertArrayEquals(expected, new LouvainCommunityDetector(1.0, 7, parallel).detect(graph));
+            assertArrayEquals(expected, new LouvainCommunityDetector(1.0, 7, parallel).detect(graph));
+            assertConnectedCommunities(graph, expected);
+            assertOrderedBySize(expected);
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void communitiesAreConnectedAndBeatTrivialPartitions() {
+        Random random = new Random(52);
+        for (int round = 0; round < 30; round++) {
+            CsrGraph graph = plantedPartition(2 + random.nextInt(6), 5 + random.nextInt(20),
+                    0.2 + 0.6 * random.nextDouble(), 0.05 * random.nextDouble(), random);
+            double resolution = 0.5 + random.nextDouble();
+            int[] membership = new LouvainCommunityDetector(resolution, round).detect(graph);
+            assertEquals(graph.nodeCount(), membership.length);
+            assertConnectedCommunities(graph, membership);
+            assertOrderedBySize(membership);
+
+            double found = LouvainCommunityDetector.modularity(graph, membership, resolution);
+            assertTrue(found >= LouvainCommunityDetector.modularity(graph, Partitions.identity(graph.nodeCount()), resolution) - 1e-12);
+            assertTrue(found >= LouvainCommunityDetector.modularity(graph, new int[graph.nodeCount()], resolution) - 1e-12);
+        }
+    }
+
+    @Test
+    void recoversWellSeparatedGroups() {
+        CsrGraph graph = plantedPartition(8, 12, 0.9, 0.005, new Random(53));
+        int[] membership = new LouvainCommunityDetector(1.0, 1).detect(graph);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                assertEquals(u / 12 == v / 12, membership[u] == membership[v], u + " and " + v);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveResolution() {
+        assertThrows(IllegalArgumentException.class, () -> new LouvainCommunityDetector(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LouvainCommunityDetector(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LouvainCommunityDetector(Double.NaN, 1));
+    }
+}
@@ -0,0 +1,261 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+import org.pina.model.Community;
+import org.pina.model.Interaction;
+import org.pina.model.Protein;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PPINetworkTest {
+
+    private static Protein protein(int i) {
+        return new Protein("P" + i, "protein" + i, "", Set.of());
+    }
+
+    private static String pair(Protein a, Protein b) {
+        String x = a.getUniprotId();
+        String y = b.getUniprotId();
+        return x.compareTo(y) <= 0 ? x + '|' + y : y + '|' + x;
+    }
+
+    // Checks every query against a plain map of the expected edges
+    private static void assertMatches(PPINetwork network, List<Protein> live, Map<String, Double> edges) {
+        assertEquals(live.size(), network.getProteinCount());
+        assertEquals(edges.size(), network.getInteractionCount());
+        assertEquals(edges.size(), network.getInteractions().size());
+        assertEquals(new HashSet<>(live), new HashSet<>(network.getProteins()));
+
+        Map<Protein, Set<Protein>> adjacency = new HashMap<>();
+        for (Protein p : live) {
+            adjacency.put(p, new HashSet<>());
+        }
+        for (Protein a : live) {
+            for (Protein b : live) {
+                Double score = edges.get(pair(a, b));
+                Interaction found = network.findInteraction(a, b);
+                if (score == null) {
+                    assertNull(found, pair(a, b));
+                } else {
+                    assertNotNull(found, pair(a, b));
+                    assertEquals(score, found.getConfidenceScore());
+                    if (!a.equals(b)) adjacency.get(a).add(b);
+                }
+            }
+        }
+
+        Set<Protein> seen = new HashSet<>();
+        int components = 0;
+        for (Protein start : live) {
+            assertEquals(adjacency.get(start).size(), network.getDegree(start), start.getName());
+            if (!seen.add(start)) continue;
+            components++;
+            Deque<Protein> queue = new ArrayDeque<>(List.of(start));
+            List<Protein> members = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                Protein p = queue.poll();
+                members.add(p);
+                for (Protein q : adjacency.get(p)) {
+                    if (seen.add(q)) queue.add(q);
+                }
+            }
+            for (Protein member : members) {
+                assertTrue(network.isConnected(start, member));
+                assertEquals(members.size(), network.getComponentSize(member));
+            }
+        }
+        assertEquals(components, network.getComponentCount());
+    }
+
+    @Test
+    void selfLoopsSurviveRandomEdits() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            PPINetwork network = new PPINetwork("self-loops");
+            List<Protein> all = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                all.add(protein(i));
+                network.addProtein(all.get(i));
+            }
+            List<Protein> live = new ArrayList<>(all);
+            Map<String, Double> edges = new HashMap<>();
+
+            for (int step = 0; step < 200; step++) {
+                int op = random.nextInt(10);
+                if (op < 5 && !live.isEmpty()) {
+                    Protein a = live.get(random.nextInt(live.size()));
+                    // Self-loops are drawn often so they end up next to other edges in the incidence rows
+                    Protein b = random.nextInt(3) == 0 ? a : live.get(random.nextInt(live.size()));
+                    double score = random.nextInt(10) / 10.0;
+                    network.addInteraction(a, b, score);
+                    edges.put(pair(a, b), score);
+                } else if (op < 8 && !live.isEmpty()) {
+                    Protein a = live.get(random.nextInt(live.size()));
+                    Protein b = random.nextBoolean() ? a : live.get(random.nextInt(live.size()));
+                    assertEquals(edges.remove(pair(a, b)) != null, network.removeInteraction(a, b));
+                } else if (op == 8 && !live.isEmpty()) {
+                    Protein removed = live.remove(random.nextInt(live.size()));
+                    network.removeProtein(removed);
+                    edges.keySet().removeIf(key -> Arrays.asList(key.split("\\|")).contains(removed.getUniprotId()));
+                } else {
+                    Protein back = all.get(random.nextInt(all.size()));
+                    if (!live.contains(back)) {
+                        network.addProtein(back);
+                        live.add(back);
+                    }
+                }
+                assertMatches(network, live, edges);
+            }
+
+            for (Protein p : new ArrayList<>(live)) {
+                network.removeProtein(p);
+                live.remove(p);
+                edges.keySet().removeIf(key -> Arrays.asList(key.split("\\|")).contains(p.getUniprotId()));
+                assertMatches(network, live, edges);
+            }
+        }
+    }
+
+    @Test
+    void removingSelfLoopNextToOtherEdgesKeepsThemReachable() {
+        PPINetwork network = new PPINetwork("self-loop");
+        Protein a = protein(1);
+        Protein b = protein(2);
+        Protein c = protein(3);
+        network.addProtein(a);
+        network.addProtein(b);
+        network.addProtein(c);
+        network.addInteraction(a, b, 0.5);
+        network.addInteraction(a, a, 0.9);
+        network.addInteraction(a, c, 0.7);
+
+        // Removing a-b moves the self-loop within a's incidence row and the last edge into slot 0
+        assertTrue(network.removeInteraction(a, b));
+        assertTrue(network.removeInteraction(a, a));
+        assertTrue(network.removeInteraction(a, c));
+        assertEquals(0, network.getInteractionCount());
+        network.removeProtein(a);
+        assertMatches(network, List.of(b, c), Map.of());
+    }
+
+    @Test
+    void compactionKeepsEdgesAndComponents() {
+        Random random = new Random(7);
+        PPINetwork network = new PPINetwork("compact");
+        List<Protein> live = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            live.add(protein(i));
+            network.addProtein(live.get(i));
+        }
+        Map<String, Double> edges = new HashMap<>();
+        for (int i = 0; i < 600; i++) {
+            Protein a = live.get(random.nextInt(live.size()));
+            Protein b = random.nextInt(5) == 0 ? a : live.get(random.nextInt(live.size()));
+            network.addInteraction(a, b, 0.5);
+            edges.put(pair(a, b), 0.5);
+        }
+
+        // Dropping over half the proteins renumbers the survivors
+        List<Protein> doomed = new ArrayList<>(live.subList(0, 200));
+        Collections.shuffle(doomed, random);
+        assertEquals(200, network.removeProteins(doomed));
+        Set<String> doomedIds = new HashSet<>();
+        for (Protein p : doomed) doomedIds.add(p.getUniprotId());
+        live.removeAll(doomed);
+        edges.keySet().removeIf(key -> Arrays.stream(key.split("\\|")).anyMatch(doomedIds::contains));
+        assertMatches(network, live, edges);
+
+        for (int i = 0; i < 100; i++) {
+            Protein a = live.get(random.nextInt(live.size()));
+            Protein b = live.get(random.nextInt(live.size()));
+            if (random.nextBoolean()) {
+                network.addInteraction(a, b, 0.3);
+                edges.put(pair(a, b), 0.3);
+            } else {
+                assertEquals(edges.remove(pair(a, b)) != null, network.removeInteraction(a, b));
+            }
+        }
+        assertMatches(network, live, edges);
+    }
+
+    @Test
+    void collidingCommunityNamesGetUniqueIds() {
+        PPINetwork network = new PPINetwork("named");
+        List<Protein> proteins = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            proteins.add(protein(i));
+            network.addProtein(proteins.get(i));
+        }
+        // Three separate pairs
+        for (int i = 0; i < 6; i += 2) {
+            network.addInteraction(proteins.get(i), proteins.get(i + 1), 0.8);
+        }
+        CommunityNamer same = (networkName, method, rank, members, hub) -> "module";
+
+        List<Community> components = network.findCommunities(same);
+        assertEquals(3, components.size());
+        assertEquals(3, new HashSet<>(components.stream().map(Community::getId).toList()).size());
+        assertTrue(components.stream().anyMatch(c -> c.getId().equals("module")));
+
+        // A later run must not overwrite the communities that already hold the name
+        List<Community> modules = network.findLabelPropagationCommunities(0.001, 1, same);
+        assertEquals(3, modules.size());
+        assertEquals(6, network.getCommunities().size());
+        Set<Set<Protein>> memberSets = new HashSet<>();
+        for (Community c : network.getCommunities()) {
+            memberSets.add(c.getProteins());
+        }
+        assertEquals(3, memberSets.size());
+    }
+
+    @Test
+    void sharedNamesStayFindableAfterRemovals() {
+        PPINetwork network = new PPINetwork("names");
+        Protein first = new Protein("Q1", "TP53", "", Set.of());
+        Protein second = new Protein("Q2", "TP53", "", Set.of());
+        Protein third = new Protein("Q3", "tp53", "", Set.of());
+        network.addProtein(first);
+        network.addProtein(second);
+        network.addProtein(third);
+        assertSame(first, network.findProtein("TP53"));
+        assertSame(third, network.findProtein("tp53"));
+
+        network.removeProtein(first);
+        assertSame(second, network.findProtein("TP53"));
+        assertTrue(network.containsProtein("Tp53"));
+
+        network.removeProtein(third);
+        assertNull(network.findProtein("tp53"));
+        assertTrue(network.containsProtein("tp53"));
+
+        // A re-added protein queues behind the current holder
+        network.addProtein(first);
+        network.removeProtein(second);
+        assertSame(first, network.findProtein("TP53"));
+        network.removeProtein(first);
+        assertNull(network.findProtein("TP53"));
+        assertFalse(network.containsProtein("TP53"));
+    }
+
+    @Test
+    void rescoringLeavesEarlierSnapshotsUnchanged() {
+        PPINetwork network = new PPINetwork("snapshots");
+        Protein a = protein(1);
+        Protein b = protein(2);
+        network.addProtein(a);
+        network.addProtein(b);
+        network.addInteraction(a, b, 0.85);
+
+        List<Interaction> before = network.getInteractions();
+        Interaction held = before.get(0);
+        network.addInteraction(b, a, 0.95);
+
+        assertEquals(0.85, held.getConfidenceScore());
+        assertEquals(0.85, before.get(0).getConfidenceScore());
+        assertEquals(0.95, network.findInteraction(a, b).getConfidenceScore());
+        assertEquals(0.95, network.getInteractions().get(0).getConfidenceScore());
+        assertEquals(0.95, network.getWeightedDegree(a), 1e-12);
+    }
+}
@@ -0,0 +1,164 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+import org.pina.model.Protein;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathFinderTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private record Graph(CsrGraph csr, Map<Long, Double> weights) {
+    }
+
+    // Sparse random graph with distinct pairs and confidences in (0, 1], some of them exactly 1
+    private static Graph randomGraph(int n, int edges, Random random) {
+        Protein[] proteins = new Protein[n];
+        for (int i = 0; i < n; i++) {
+            proteins[i] = new Protein("P" + i, "protein" + i, "", Set.of());
+        }
+        Map<Long, Double> weights = new LinkedHashMap<>();
+        while (weights.size() < edges) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u == v) continue;
+            double w = random.nextInt(8) == 0 ? 1.0 : 0.05 + 0.95 * random.nextDouble();
+            weights.putIfAbsent(EdgeIndex.key(u, v), w);
+        }
+        int[] source = new int[edges];
+        int[] target = new int[edges];
+        double[] score = new double[edges];
+        int e = 0;
+        for (Map.Entry<Long, Double> edge : weights.entrySet()) {
+            source[e] = (int) (edge.getKey() >>> 32);
+            target[e] = (int) (long) edge.getKey();
+            score[e++] = edge.getValue();
+        }
+        return new Graph(CsrGraph.fromEdges(proteins, source, target, score, edges), weights);
+    }
+
+    private static boolean allowed(BitSet mask, double minConfidence, double weight, int u) {
+        return weight >= minConfidence && (mask == null || mask.get(u));
+    }
+
+    // Textbook Dijkstra on -log(confidence); infinity when unreachable
+    private static double dijkstra(CsrGraph g, int source, int target, BitSet mask, double minConfidence) {
+        double[] distance = new double[g.nodeCount()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(a -> a[0]));
+        queue.add(new double[]{0, source});
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int v = (int) top[1];
+            if (top[0] > distance[v]) continue;
+            for (int i = 0; i < g.degree(v); i++) {
+                int u = g.neighbor(v, i);
+                if (!allowed(mask, minConfidence, g.weight(v, i), u)) continue;
+                double d = distance[v] - Math.log(g.weight(v, i));
+                if (d < distance[u]) {
+                    distance[u] = d;
+                    queue.add(new double[]{d, u});
+                }
+            }
+        }
+        return distance[target];
+    }
+
+    private static int bfs(CsrGraph g, int source, int target, BitSet mask, double minConfidence) {
+        int[] hops = new int[g.nodeCount()];
+        Arrays.fill(hops, -1);
+        hops[source] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(source));
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            for (int i = 0; i < g.degree(v); i++) {
+                int u = g.neighbor(v, i);
+                if (hops[u] < 0 && allowed(mask, minConfidence, g.weight(v, i), u)) {
+                    hops[u] = hops[v] + 1;
+                    queue.add(u);
+                }
+            }
+        }
+        return hops[target];
+    }
+
+    // Checks the path is a walk over usable edges and returns its cost
+    private static double cost(Graph graph, int[] path, int source, int target, BitSet mask, double minConfidence) {
+        assertEquals(source, path[0]);
+        assertEquals(target, path[path.length - 1]);
+        double cost = 0;
+        for (int i = 1; i < path.length; i++) {
+            Double w = graph.weights().get(EdgeIndex.key(path[i - 1], path[i]));
+            assertNotNull(w, "no edge " + path[i - 1] + "-" + path[i]);
+            assertTrue(allowed(mask, minConfidence, w, path[i]));
+            cost -= Math.log(w);
+        }
+        return cost;
+    }
+
+    private static void assertAgrees(Graph graph, PathFinder finder, BitSet mask, double minConfidence, Random random) {
+        CsrGraph g = graph.csr();
+        for (int q = 0; q < 300; q++) {
+            int s = random.nextInt(g.nodeCount());
+            int t = random.nextInt(g.nodeCount());
+            if (mask != null && (!mask.get(s) || !mask.get(t))) {
+                assertNull(finder.mostConfidentPath(s, t));
+                continue;
+            }
+            double expected = dijkstra(g, s, t, mask, minConfidence);
+            int[] path = finder.mostConfidentPath(s, t);
+            if (expected == Double.POSITIVE_INFINITY) {
+                assertNull(path, s + "->" + t);
+            } else {
+                assertNotNull(path, s + "->" + t);
+                assertEquals(expected, cost(graph, path, s, t, mask, minConfidence), EPSILON, s + "->" + t);
+            }
+
+            int hops = bfs(g, s, t, mask, minConfidence);
+            assertEquals(hops, finder.hopDistance(s, t), s + "->" + t);
+            int[] shortest = finder.shortestPath(s, t);
+            if (hops >= 0) {
+                cost(graph, shortest, s, t, mask, minConfidence);
+                assertEquals(hops + 1, shortest.length);
+            }
+        }
+    }
+
+    @Test
+    void mostConfidentPathMatchesDijkstra() {
+        Random random = new Random(21);
+        for (int round = 0; round < 10; round++) {
+            Graph graph = randomGraph(200, 200 + random.nextInt(400), random);
+            assertAgrees(graph, new PathFinder(graph.csr()), null, Double.NEGATIVE_INFINITY, random);
+        }
+    }
+
+    @Test
+    void landmarksDoNotChangeResults() {
+        Random random = new Random(22);
+        for (int round = 0; round < 10; round++) {
+            Graph graph = randomGraph(300, 500, random);
+            PathFinder finder = new PathFinder(graph.csr(), 1 + random.nextInt(8));
+            assertAgrees(graph, finder, null, Double.NEGATIVE_INFINITY, random);
+        }
+    }
+
+    @Test
+    void maskAndConfidenceFloorRestrictTheSearch() {
+        Random random = new Random(23);
+        for (int round = 0; round < 10; round++) {
+            Graph graph = randomGraph(200, 600, random);
+            BitSet mask = new BitSet();
+            for (int v = 0; v < 200; v++) {
+                if (random.nextInt(4) != 0) mask.set(v);
+            }
+            double floor = 0.3;
+            PathFinder finder = new PathFinder(graph.csr(), round % 3, mask, floor);
+            assertAgrees(graph, finder, mask, floor, random);
+        }
+    }
+}
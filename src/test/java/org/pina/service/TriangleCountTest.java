@@ -0,0 +1,97 @@
+package org.pina.service;
+
+import org.junit.jupiter.api.Test;
+import org.pina.model.Protein;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TriangleCountTest {
+
+    // Random simple graph; returns the CSR graph and fills adjacency
+    static CsrGraph randomGraph(int n, double density, Random random, boolean[][] adjacency) {
+        Protein[] proteins = new Protein[n];
+        for (int i = 0; i < n; i++) {
+            proteins[i] = new Protein("P" + i, "protein" + i, "", Set.of());
+        }
+        int[] source = new int[n * n];
+        int[] target = new int[n * n];
+        double[] score = new double[n * n];
+        int edges = 0;
+        for (int u = 0; u < n; u++) {
+            for (int v = u + 1; v < n; v++) {
+                if (random.nextDouble() < density) {
+                    adjacency[u][v] = adjacency[v][u] = true;
+                    source[edges] = u;
+                    target[edges] = v;
+                    score[edges++] = 0.5;
+                }
+            }
+        }
+        return CsrGraph.fromEdges(proteins, source, target, score, edges);
+    }
+
+    @Test
+    void smallGraphsMatchBruteForce() {
+        Random random = new Random(31);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(20);
+            boolean[][] adjacency = new boolean[n][n];
+            CsrGraph graph = randomGraph(n, random.nextDouble(), random, adjacency);
+            TriangleCount count = TriangleCount.compute(graph);
+
+            long[] expected = new long[n];
+            long total = 0;
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    for (int c = b + 1; c < n; c++) {
+                        if (adjacency[a][b] && adjacency[b][c] && adjacency[a][c]) {
+                            expected[a]++;
+                            expected[b]++;
+                            expected[c]++;
+                            total++;
+                        }
+                    }
+                }
+            }
+            assertEquals(total, count.totalTriangles());
+            double clusteringSum = 0;
+            for (int v = 0; v < n; v++) {
+                assertEquals(expected[v], count.triangles(v), "node " + v);
+                long d = graph.degree(v);
+                double local = d < 2 ? 0 : expected[v] / (d * (d - 1) / 2.0);
+                assertEquals(local, count.localClustering(v), 1e-12);
+                clusteringSum += local;
+            }
+            assertEquals(clusteringSum / n, count.averageClustering(), 1e-12);
+        }
+    }
+
+    @Test
+    void parallelCountMatchesNeighbourIntersection() {
+        Random random = new Random(32);
+        int n = 3000;
+        boolean[][] adjacency = new boolean[n][n];
+        CsrGraph graph = randomGraph(n, 0.01, random, adjacency);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TriangleCount count = TriangleCount.compute(graph, pool);
+            long total = 0;
+            for (int v = 0; v < n; v++) {
+                long triangles = 0;
+                for (int i = 0; i < graph.degree(v); i++) {
+                    for (int j = i + 1; j < graph.degree(v); j++) {
+                        if (adjacency[graph.neighbor(v, i)][graph.neighbor(v, j)]) triangles++;
+                    }
+                }
+                assertEquals(triangles, count.triangles(v), "node " + v);
+                total += triangles;
+            }
+            assertEquals(total / 3, count.totalTriangles());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}